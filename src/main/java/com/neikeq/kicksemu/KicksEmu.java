@@ -2,9 +2,11 @@ package com.neikeq.kicksemu;
 
 import com.neikeq.kicksemu.config.Configuration;
 import com.neikeq.kicksemu.config.Localization;
+import com.neikeq.kicksemu.game.characters.CharacterCache;
 import com.neikeq.kicksemu.game.chat.ChatCommands;
 import com.neikeq.kicksemu.game.events.EventsManager;
 import com.neikeq.kicksemu.game.events.GameEvents;
+import com.neikeq.kicksemu.game.misc.Moderation;
 import com.neikeq.kicksemu.game.servers.ServerType;
 import com.neikeq.kicksemu.game.table.TableManager;
 import com.neikeq.kicksemu.game.servers.ServerInfo;
@@ -12,12 +14,16 @@ import com.neikeq.kicksemu.game.sessions.Session;
 import com.neikeq.kicksemu.io.Input;
 import com.neikeq.kicksemu.io.Output;
 import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.network.packets.in.MessageMetrics;
 import com.neikeq.kicksemu.network.server.ServerManager;
 import com.neikeq.kicksemu.network.server.tcp.NettyTcpServer;
 import com.neikeq.kicksemu.network.server.udp.NettyUdpServer;
+import com.neikeq.kicksemu.storage.DatabaseExecutor;
 import com.neikeq.kicksemu.storage.MySqlManager;
+import com.neikeq.kicksemu.utils.HashingExecutor;
 import org.quartz.SchedulerException;
 
+import java.io.UncheckedIOException;
 import java.net.BindException;
 import java.sql.SQLException;
 
@@ -62,6 +68,8 @@ public class KicksEmu {
             // --- Initialize MySQL Database
             Output.println(Localization.get("mysql.init"));
             MySqlManager.initialize();
+            DatabaseExecutor.initialize();
+            HashingExecutor.initialize();
 
             // --- Initialize ServerManager
             Output.println(Localization.get("server.init"));
@@ -69,12 +77,15 @@ public class KicksEmu {
             ServerManager.initialize();
             ServerManager.getMessageHandler().defineEvents();
             ServerManager.getMessageHandler().defineCertifyEvents();
+            MessageMetrics.initialize();
             ServerManager.cleanPossibleConnectedUsers();
 
             // --- Initialize Game Components
             Output.println(Localization.get("game.init"));
 
             TableManager.initialize();
+            CharacterCache.initialize();
+            Moderation.initialize();
             EventsManager.initialize();
             GameEvents.initialize();
 
@@ -110,6 +121,9 @@ public class KicksEmu {
         } catch (SQLException | IllegalArgumentException | AssertionError e) {
             // Connection error
             handleFatalError(e.getMessage());
+        } catch (UncheckedIOException | IllegalStateException e) {
+            // Game tables could not be loaded
+            handleFatalError(e.getMessage());
         } catch (BindException e) {
             handleFatalError(Localization.get("net.bind.error"), e.getMessage());
         } catch (SchedulerException e) {
@@ -158,12 +172,23 @@ public class KicksEmu {
         Output.println(Localization.get("net.close"));
         disposeNetworking();
 
+        // Wait for the pending database tasks
+        DatabaseExecutor.shutdown();
+        HashingExecutor.shutdown();
+
+        // Write back the pending character changes
+        CharacterCache.shutdown();
+        Moderation.shutdown();
+
         // Update server online statics in database
         Output.println(Localization.get("mysql.clean"));
         disposeDatabase();
 
         // Dispose EventsManager
         EventsManager.shutdown();
+
+        MessageMetrics.shutdown();
+        MessageMetrics.dump();
     }
 
     private static void disposeNetworking() {
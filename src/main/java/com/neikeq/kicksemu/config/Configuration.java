@@ -40,9 +40,26 @@ public class Configuration {
         config.put("mysql.host", "localhost");
         config.put("mysql.port", "3306");
         config.put("mysql.database", "kicksdb");
+        config.put("mysql.executor.threads", "16");
+        config.put("mysql.executor.queue", "1024");
+
+        // Login Settings
+        config.put("login.hash.threads", "0");
+        config.put("login.hash.queue", "256");
+        config.put("login.session.secret", "");
         
         // Networking Settings
         config.put("net.backlog", "50");
+        config.put("net.epoll", "false");
+        config.put("net.threads.boss", "1");
+        config.put("net.threads.worker", "0");
+        config.put("net.threads.udp", "1");
+
+        // Metrics Settings
+        config.put("metrics.dump.interval", "60");
+
+        // Table Settings
+        config.put("table.snapshot", "true");
         
         // Language Settings
         config.put("lang", "en");
@@ -52,6 +69,8 @@ public class Configuration {
         config.put("game.tcp.port.factor", "1200");
         config.put("game.users.max", "500");
         config.put("game.type", "main");
+        config.put("game.cache.flush", "60");
+        config.put("game.bans.refresh", "30");
         
         // Try to read the properties from the configuration file
         loadConfiguration();
@@ -22,6 +22,7 @@ public class Constants {
     public static final String TABLE_GOLDEN_TIME_DEFAULT = TABLE_DIR + "Table_Golden_Time.csv";
     public static final String TABLE_CLUB_TIME_DEFAULT = TABLE_DIR + "Table_Club_Time.csv";
     public static final String TABLE_TIPS_DEFAULT = TABLE_DIR + "table_tips_";
+    public static final String TABLE_SNAPSHOT = TABLE_DIR + "tables.bin";
 
     public static final String PROPERTY_TABLE_SKILL = "table.skill";
     public static final String PROPERTY_TABLE_CELE = "table.cele";
@@ -0,0 +1,145 @@
+package com.neikeq.kicksemu.game.characters;
+
+import com.neikeq.kicksemu.config.Configuration;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.storage.ConnectionRef;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-back cache for the characters connected to this server.<br>
+ * Records are loaded on game login, serve every read from memory and are
+ * written back periodically and when the session is closed.<br>
+ * Changes to the currency columns are written back immediately, like the inventory.<br>
+ * Evicted records whose last write back failed are kept until a later flush succeeds.
+ */
+public class CharacterCache {
+
+    private static final Map<Integer, CharacterRecord> records = new ConcurrentHashMap<>();
+    /** Evicted records waiting for their last write back to succeed. */
+    private static final Map<Integer, PendingRecord> pendingRecords = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService flushScheduler;
+
+    public static void initialize() {
+        int interval = Configuration.getInt("game.cache.flush");
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "character-cache-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        flushScheduler.scheduleWithFixedDelay(CharacterCache::flushAll,
+                interval, interval, TimeUnit.SECONDS);
+    }
+
+    public static void load(int id, ConnectionRef ... con) {
+        try {
+            CharacterRecord.load(id, con).ifPresent(record -> records.put(id, record));
+        } catch (SQLException e) {
+            // Reads and writes will fall back to the database
+            Output.println("Exception when loading character record: " +
+                    e.getMessage(), Level.DEBUG);
+        }
+    }
+
+    public static Optional<CharacterRecord> get(int id) {
+        return Optional.ofNullable(records.get(id));
+    }
+
+    /**
+     * Writes back the pending changes of the record and removes it from the cache.<br>
+     * If the write back fails, it is retried by the next flushes.
+     * @param onWrittenBack called once the changes were written back
+     */
+    public static void evict(int id, Runnable onWrittenBack) {
+        CharacterRecord record = records.get(id);
+
+        if (record == null) {
+            onWrittenBack.run();
+            return;
+        }
+
+        // Changes made from now on are written directly to the database
+        record.markEvicted();
+
+        boolean flushed = flush(record);
+        records.remove(id, record);
+
+        if (flushed) {
+            onWrittenBack.run();
+        } else {
+            pendingRecords.put(id, new PendingRecord(record, onWrittenBack));
+        }
+    }
+
+    /** Writes back the pending changes of the record right away, if it is cached. */
+    public static void flush(int id, ConnectionRef ... con) {
+        CharacterRecord record = records.get(id);
+
+        if (record != null) {
+            flush(record, con);
+        }
+    }
+
+    public static void flushAll() {
+        try (ConnectionRef con = ConnectionRef.ref()) {
+            records.values().forEach(record -> flush(record, con));
+
+            pendingRecords.forEach((id, pending) -> {
+                if (flush(pending.record, con) && pendingRecords.remove(id, pending)) {
+                    pending.onWrittenBack.run();
+                }
+            });
+        } catch (SQLException e) {
+            Output.println("Exception when flushing character records: " +
+                    e.getMessage(), Level.WARNING);
+        }
+    }
+
+    /** @return true if the changes were written back */
+    private static boolean flush(CharacterRecord record, ConnectionRef ... con) {
+        try {
+            record.flush(con);
+            return true;
+        } catch (SQLException e) {
+            Output.println("Exception when flushing character record " + record.getId() +
+                    ": " + e.getMessage(), Level.WARNING);
+            return false;
+        }
+    }
+
+    public static void shutdown() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+        }
+
+        flushAll();
+
+        pendingRecords.keySet().forEach(id -> Output.println("Changes of character " + id +
+                " could not be written back.", Level.WARNING));
+    }
+
+    private static class PendingRecord {
+
+        private final CharacterRecord record;
+        private final Runnable onWrittenBack;
+
+        private PendingRecord(CharacterRecord record, Runnable onWrittenBack) {
+            this.record = record;
+            this.onWrittenBack = onWrittenBack;
+        }
+    }
+
+    private CharacterCache() {
+        throw new AssertionError();
+    }
+}
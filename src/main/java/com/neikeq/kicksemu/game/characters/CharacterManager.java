@@ -17,7 +17,6 @@ import com.neikeq.kicksemu.network.packets.out.MessageBuilder;
 import com.neikeq.kicksemu.network.server.ServerManager;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import org.apache.commons.lang3.mutable.MutableInt;
-import org.apache.commons.lang3.mutable.MutableShort;
 
 import java.sql.SQLException;
 import java.util.Map;
@@ -116,27 +115,22 @@ public class CharacterManager {
     }
 
     public static short checkIfLevelUp(Session s, short level, int exp, ConnectionRef ... con) {
-        MutableShort levels = new MutableShort();
-
-        TableManager.getLevelInfo(li -> (li.getLevel() > level) && (li.getExperience() <= exp))
-                .ifPresent(newLevelInfo -> {
-            if (newLevelInfo != null) {
-                short newLevel = newLevelInfo.getLevel();
+        if (!TableManager.isLevelUp(level, exp)) {
+            return 0;
+        }
 
-                if (newLevel > level) {
-                    levels.setValue((short) (newLevel - level));
-                }
+        short newLevel = TableManager.getLevelByExperience(exp);
+        short levels = (short) (newLevel - level);
 
-                if (levels.shortValue() > 0) {
-                    int playerId = s.getPlayerId();
-                    PlayerInfo.setLevel(newLevel, playerId, con);
-                    short position = s.getCache().getPosition(con);
-                    onPlayerLevelUp(playerId, newLevel, levels.shortValue(), position, con);
-                }
-            }
-        });
+        if (levels > 0) {
+            int playerId = s.getPlayerId();
+            PlayerInfo.setLevel(newLevel, playerId, con);
+            s.invalidateLobbyListEntry();
+            short position = s.getCache().getPosition(con);
+            onPlayerLevelUp(playerId, newLevel, levels, position, con);
+        }
 
-        return levels.shortValue();
+        return (short) Math.max(0, levels);
     }
 
     private static void onPlayerLevelUp(int id, short level, short levels,
@@ -0,0 +1,196 @@
+package com.neikeq.kicksemu.game.characters;
+
+import com.neikeq.kicksemu.storage.ConnectionRef;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory copy of the cached columns of a row in the characters table.<br>
+ * Modified columns are marked as dirty and written back to the database
+ * in a single update by {@link #flush}.
+ */
+public class CharacterRecord {
+
+    private static final String TABLE = "characters";
+
+    static final String[] COLUMNS = {
+            "owner", "name", "blocked", "moderator", "visible", "level", "position",
+            "quest_current", "quest_matches_left", "tutorial_dribbling", "tutorial_passing",
+            "tutorial_shooting", "tutorial_defense", "received_reward", "experience", "points",
+            "tickets_kash", "tickets_points", "animation", "face", "default_head",
+            "default_shirts", "default_pants", "default_shoes", "stats_points", "stats_running",
+            "stats_endurance", "stats_agility", "stats_ball_control", "stats_dribbling",
+            "stats_stealing", "stats_tackling", "stats_heading", "stats_short_shots",
+            "stats_long_shots", "stats_crossing", "stats_short_passes", "stats_long_passes",
+            "stats_marking", "stats_goalkeeping", "stats_punching", "stats_defense",
+            "status_message", "ignored_list"
+    };
+
+    private final int id;
+    private final Map<String, Object> values = new HashMap<>();
+    private final Set<String> dirtyColumns = new LinkedHashSet<>();
+    private final Object flushLocker = new Object();
+
+    private boolean evicted;
+
+    static Optional<CharacterRecord> load(int id, ConnectionRef ... con) throws SQLException {
+        final String query = "SELECT " + String.join(", ", (CharSequence[]) COLUMNS) +
+                " FROM " + TABLE + " WHERE id = ? LIMIT 1;";
+
+        try (ConnectionRef connection = ConnectionRef.ref(con);
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+
+                CharacterRecord record = new CharacterRecord(id);
+
+                for (String column : COLUMNS) {
+                    record.values.put(column, rs.getObject(column));
+                }
+
+                return Optional.of(record);
+            }
+        }
+    }
+
+    private CharacterRecord(int id) {
+        this.id = id;
+    }
+
+    public synchronized short getShort(String column) {
+        Object value = values.get(column);
+        return (value instanceof Number) ? ((Number) value).shortValue() : -1;
+    }
+
+    public synchronized byte getByte(String column) {
+        Object value = values.get(column);
+        return (value instanceof Number) ? ((Number) value).byteValue() : -1;
+    }
+
+    public synchronized int getInt(String column) {
+        Object value = values.get(column);
+        return (value instanceof Number) ? ((Number) value).intValue() : -1;
+    }
+
+    public synchronized boolean getBoolean(String column) {
+        Object value = values.get(column);
+
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+
+        return (value instanceof Number) && (((Number) value).intValue() != 0);
+    }
+
+    public synchronized String getString(String column) {
+        Object value = values.get(column);
+        return (value != null) ? value.toString() : null;
+    }
+
+    /**
+     * Updates a column value in memory.
+     * @return false if the record was evicted and the caller must write to the database
+     */
+    public boolean set(String column, Object value) {
+        return set(Collections.singletonMap(column, value));
+    }
+
+    /** Updates several columns atomically. Same return semantics as {@link #set(String, Object)} */
+    public synchronized boolean set(Map<String, Object> changes) {
+        if (evicted) {
+            return false;
+        }
+
+        values.putAll(changes);
+        dirtyColumns.addAll(changes.keySet());
+
+        return true;
+    }
+
+    public synchronized boolean sumInt(String column, int value) {
+        if (evicted) {
+            return false;
+        }
+
+        if (value != 0) {
+            values.put(column, getInt(column) + value);
+            dirtyColumns.add(column);
+        }
+
+        return true;
+    }
+
+    public synchronized boolean sumShort(String column, short value) {
+        if (evicted) {
+            return false;
+        }
+
+        if (value != 0) {
+            values.put(column, (short) (getShort(column) + value));
+            dirtyColumns.add(column);
+        }
+
+        return true;
+    }
+
+    synchronized void markEvicted() {
+        evicted = true;
+    }
+
+    /** Writes every dirty column to the database with a single update statement. */
+    void flush(ConnectionRef ... con) throws SQLException {
+        // Serializes flushes so an older snapshot can never overwrite a newer one
+        synchronized (flushLocker) {
+            Map<String, Object> changes = new LinkedHashMap<>();
+
+            synchronized (this) {
+                dirtyColumns.forEach(column -> changes.put(column, values.get(column)));
+                dirtyColumns.clear();
+            }
+
+            if (changes.isEmpty()) {
+                return;
+            }
+
+            final String query = "UPDATE " + TABLE + " SET " +
+                    String.join(" = ?, ", changes.keySet()) + " = ? WHERE id = ? LIMIT 1;";
+
+            try (ConnectionRef connection = ConnectionRef.ref(con);
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                int index = 1;
+
+                for (Object value : changes.values()) {
+                    stmt.setObject(index++, value);
+                }
+
+                stmt.setInt(index, id);
+
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                // Keep the columns dirty so the next flush tries again
+                synchronized (this) {
+                    dirtyColumns.addAll(changes.keySet());
+                }
+
+                throw e;
+            }
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -171,7 +171,7 @@ public class CharacterUtils {
     }
 
     public static void updateItemsInUse(Item itemIn, Session session) {
-        TableManager.getItemInfo(o -> o.getId() == itemIn.getId()).ifPresent(itemInfo ->
+        TableManager.getItemInfo(itemIn.getId()).ifPresent(itemInfo ->
             ItemType.fromInt(itemInfo.getType()).ifPresent(itemType -> {
                 if (!DEACTIVATION_EXCEPTIONS.contains(itemType)) {
                     Item itemOut = getItemInUseByType(itemType, session);
@@ -19,6 +19,7 @@ import com.neikeq.kicksemu.game.misc.ignored.IgnoredList;
 import com.neikeq.kicksemu.game.sessions.Session;
 import com.neikeq.kicksemu.io.Output;
 import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.network.server.ServerManager;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import com.neikeq.kicksemu.storage.SqlUtils;
 
@@ -49,18 +50,24 @@ public class PlayerInfo {
     // getters
 
     public static int getOwner(int id, ConnectionRef ... con) {
-        return SqlUtils.getInt("owner", TABLE, id, con);
+        return getInt("owner", id, con);
     }
 
     public static String getName(int id, ConnectionRef ... con) {
-        return SqlUtils.getString("name", TABLE, id, con);
+        return getString("name", id, con);
     }
 
     public static boolean isBlocked(int id, ConnectionRef ... con) {
-        return SqlUtils.getBoolean("blocked", TABLE, id, con);
+        return getBoolean("blocked", id, con);
     }
 
     public static boolean isVisibleInLobby(int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+
+        if (record.isPresent()) {
+            return !record.get().getBoolean("moderator") || record.get().getBoolean("visible");
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "SELECT moderator, visible FROM " + TABLE + " WHERE id = ? LIMIT 1;";
 
@@ -78,22 +85,29 @@ public class PlayerInfo {
     }
 
     public static boolean isModerator(int id, ConnectionRef ... con) {
-        return SqlUtils.getBoolean("moderator", TABLE, id, con);
+        return getBoolean("moderator", id, con);
     }
 
     public static boolean isVisible(int id, ConnectionRef ... con) {
-        return SqlUtils.getBoolean("visible", TABLE, id, con);
+        return getBoolean("visible", id, con);
     }
 
     public static short getLevel(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("level", TABLE, id, con);
+        return getShort("level", id, con);
     }
 
     public static short getPosition(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("position", TABLE, id, con);
+        return getShort("position", id, con);
     }
 
     public static QuestState getQuestState(int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+
+        if (record.isPresent()) {
+            return new QuestState(record.get().getShort("quest_current"),
+                    record.get().getShort("quest_matches_left"));
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "SELECT quest_current, quest_matches_left FROM " +
                     TABLE + " WHERE id = ? LIMIT 1;";
@@ -112,6 +126,15 @@ public class PlayerInfo {
     }
 
     public static TutorialState getTutorialState(int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+
+        if (record.isPresent()) {
+            CharacterRecord r = record.get();
+            return new TutorialState(r.getByte("tutorial_dribbling"),
+                    r.getByte("tutorial_passing"), r.getByte("tutorial_shooting"),
+                    r.getByte("tutorial_defense"));
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "SELECT tutorial_dribbling, tutorial_passing, tutorial_shooting, " +
                     "tutorial_defense FROM " + TABLE + " WHERE id = ? LIMIT 1;";
@@ -131,34 +154,42 @@ public class PlayerInfo {
     }
 
     public static boolean getReceivedReward(int id, ConnectionRef ... con) {
-        return SqlUtils.getBoolean("received_reward", TABLE, id, con);
+        return getBoolean("received_reward", id, con);
     }
 
     public static int getExperience(int id, ConnectionRef ... con) {
-        return SqlUtils.getInt("experience", TABLE, id, con);
+        return getInt("experience", id, con);
     }
 
     public static int getPoints(int id, ConnectionRef ... con) {
-        return SqlUtils.getInt("points", TABLE, id, con);
+        return getInt("points", id, con);
     }
 
     public static short getTicketsCash(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("tickets_kash", TABLE, id, con);
+        return getShort("tickets_kash", id, con);
     }
 
     public static short getTicketsPoints(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("tickets_points", TABLE, id, con);
+        return getShort("tickets_points", id, con);
     }
 
     public static short getAnimation(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("animation", TABLE, id, con);
+        return getShort("animation", id, con);
     }
 
     public static short getFace(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("face", TABLE, id, con);
+        return getShort("face", id, con);
     }
 
     public static DefaultClothes getDefaultClothes(int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+
+        if (record.isPresent()) {
+            CharacterRecord r = record.get();
+            return new DefaultClothes(r.getInt("default_head"), r.getInt("default_shirts"),
+                    r.getInt("default_pants"), r.getInt("default_shoes"));
+        }
+
         DefaultClothes defaultClothes;
 
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
@@ -192,7 +223,7 @@ public class PlayerInfo {
         while (items.hasNext()) {
             Item item = items.next();
 
-            slots += TableManager.getOptionInfo(oi -> oi.getId() == item.getBonusOne())
+            slots += TableManager.getOptionInfo(item.getBonusOne())
                     .map(OptionInfo::getValue).orElse((short) 0);
         }
 
@@ -201,7 +232,7 @@ public class PlayerInfo {
 
     public static Item getItemInUseByType(ItemType type, Session session, ConnectionRef ... con) {
         Optional<Item> result = session.getCache().getItems(con).values().stream()
-                .filter(item -> TableManager.getItemInfo(i -> i.getId() == item.getId())
+                .filter(item -> TableManager.getItemInfo(item.getId())
                         .map(itemInfo -> (itemInfo.getType() == type.toInt()) && item.isSelected())
                         .orElse(false))
                 .findFirst();
@@ -270,10 +301,26 @@ public class PlayerInfo {
     }
 
     public static short getStatsPoints(int id, ConnectionRef ... con) {
-        return SqlUtils.getShort("stats_points", TABLE, id, con);
+        return getShort("stats_points", id, con);
     }
 
     public static PlayerStats getStats(int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+
+        if (record.isPresent()) {
+            CharacterRecord r = record.get();
+            return new PlayerStats(
+                    r.getShort("stats_running"), r.getShort("stats_endurance"),
+                    r.getShort("stats_agility"), r.getShort("stats_ball_control"),
+                    r.getShort("stats_dribbling"), r.getShort("stats_stealing"),
+                    r.getShort("stats_tackling"), r.getShort("stats_heading"),
+                    r.getShort("stats_short_shots"), r.getShort("stats_long_shots"),
+                    r.getShort("stats_crossing"), r.getShort("stats_short_passes"),
+                    r.getShort("stats_long_passes"), r.getShort("stats_marking"),
+                    r.getShort("stats_goalkeeping"), r.getShort("stats_punching"),
+                    r.getShort("stats_defense"));
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "SELECT stats_running, stats_endurance, stats_agility, " +
                     "stats_ball_control, stats_dribbling, stats_stealing, stats_tackling, " +
@@ -306,7 +353,7 @@ public class PlayerInfo {
         PlayerStats learnStats = new PlayerStats();
 
         session.getCache().getLearns(con).values().stream().forEach(learn ->
-                TableManager.getLearnInfo(l -> l.getId() == learn.getId())
+                TableManager.getLearnInfo(learn.getId())
                         .ifPresent(learnInfo ->
                                 CharacterUtils.sumStatsByIndex(learnInfo.getStatIndex(),
                                         learnInfo.getStatPoints(), learnStats)));
@@ -318,12 +365,12 @@ public class PlayerInfo {
         PlayerStats bonusStats = new PlayerStats();
 
         session.getCache().getItems(con).values().stream().filter(Item::isSelected).forEach(item -> {
-            TableManager.getOptionInfo(of -> of.getId() == item.getBonusOne())
+            TableManager.getOptionInfo(item.getBonusOne())
                     .ifPresent(optionInfoOne ->
                             CharacterUtils.sumStatsByIndex(optionInfoOne.getType() - 10,
                                     optionInfoOne.getValue(), bonusStats));
 
-            TableManager.getOptionInfo(of -> of.getId() == item.getBonusTwo())
+            TableManager.getOptionInfo(item.getBonusTwo())
                     .ifPresent(optionInfoTwo ->
                             CharacterUtils.sumStatsByIndex(optionInfoTwo.getType() - 10,
                                     optionInfoTwo.getValue(), bonusStats));
@@ -403,7 +450,7 @@ public class PlayerInfo {
     }
 
     public static String getStatusMessage(int id, ConnectionRef ... con) {
-        return SqlUtils.getString("status_message", TABLE, id, con);
+        return getString("status_message", id, con);
     }
 
     public static Map<Integer, Item> getInventoryItems(int id, ConnectionRef ... con) {
@@ -528,29 +575,54 @@ public class PlayerInfo {
         return celebrations;
     }
 
+    /** The list of a player connected to this server is the one loaded by its session. */
     public static FriendsList getFriendsList(int id, ConnectionRef ... con) {
-        return FriendsList.fromString(SqlUtils.getString("friends_list", TABLE, id, con), id);
+        return ServerManager.getSession(id).map(Session::getFriendsList)
+                .orElseGet(() -> FriendsList.fromString(
+                        SqlUtils.getString("friends_list", TABLE, id, con), id));
     }
 
+    /**
+     * Reads the list from the database and replaces the one loaded by the session.<br>
+     * Friends lists are modified by the servers of both players, so they must be
+     * read again before being modified.
+     */
+    public static FriendsList loadFriendsList(int id, ConnectionRef ... con) {
+        FriendsList friendsList = FriendsList.fromString(
+                SqlUtils.getString("friends_list", TABLE, id, con), id);
+        ServerManager.getSession(id).ifPresent(s -> s.setFriendsList(friendsList));
+        return friendsList;
+    }
+
+    /** The list of a player connected to this server is the one loaded by its session. */
     public static IgnoredList getIgnoredList(int id, ConnectionRef ... con) {
-        return IgnoredList.fromString(SqlUtils.getString("ignored_list", TABLE, id, con), id);
+        return ServerManager.getSession(id).map(Session::getIgnoredList)
+                .orElseGet(() -> IgnoredList.fromString(getString("ignored_list", id, con), id));
     }
 
     // setters
 
     public static void setVisible(boolean value, int id, ConnectionRef ... con) {
-        SqlUtils.setBoolean("visible", value, TABLE, id, con);
+        setBoolean("visible", value, id, con);
     }
 
     public static void setLevel(short value, int id, ConnectionRef ... con) {
-        SqlUtils.setShort("level", value, TABLE, id, con);
+        setShort("level", value, id, con);
     }
 
     public static void setPosition(short value, int id, ConnectionRef ... con) {
-        SqlUtils.setShort("position", value, TABLE, id, con);
+        setShort("position", value, id, con);
     }
 
     public static void setQuestState(QuestState questState, int id, ConnectionRef ... con) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("quest_current", questState.getCurrentQuest());
+        changes.put("quest_matches_left", questState.getRemainMatches());
+
+        if (setCached(changes, id)) {
+            return;
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "UPDATE " + TABLE + " SET quest_current=?, quest_matches_left=? " +
                     "WHERE id = ? LIMIT 1;";
@@ -568,6 +640,16 @@ public class PlayerInfo {
     }
 
     public static void setTutorialState(TutorialState tutorial, int id, ConnectionRef ... con) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("tutorial_dribbling", tutorial.getDribbling());
+        changes.put("tutorial_passing", tutorial.getPassing());
+        changes.put("tutorial_shooting", tutorial.getShooting());
+        changes.put("tutorial_defense", tutorial.getDefense());
+
+        if (setCached(changes, id)) {
+            return;
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "UPDATE " + TABLE + " SET tutorial_dribbling=?, tutorial_passing=?, " +
                     "tutorial_shooting=?, tutorial_defense=? WHERE id=? LIMIT 1;";
@@ -587,10 +669,28 @@ public class PlayerInfo {
     }
 
     public static void setReceivedReward(boolean value, int id, ConnectionRef ... con) {
-        SqlUtils.setBoolean("received_reward", value, TABLE, id, con);
+        setBoolean("received_reward", value, id, con);
     }
 
     public static void sumRewards(int experience, int points, int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+
+        if (record.isPresent()) {
+            CharacterRecord r = record.get();
+            boolean cached;
+
+            synchronized (r) {
+                cached = r.sumInt("experience", (experience >= 0) ? experience : 0) &&
+                        r.sumInt("points", (points >= 0) ? points : 0);
+            }
+
+            // Flushed without the record lock, flush acquires it after its own lock
+            if (cached) {
+                CharacterCache.flush(id, con);
+                return;
+            }
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "UPDATE " + TABLE + " SET experience = experience + ?, " +
                     "points = points + ? WHERE id = ? LIMIT 1;";
@@ -608,26 +708,56 @@ public class PlayerInfo {
     }
 
     public static void sumPoints(int value, int id, ConnectionRef ... con) {
-        SqlUtils.sumInt("points", value, TABLE, id, con);
+        if (CharacterCache.get(id).filter(r -> r.sumInt("points", value)).isPresent()) {
+            // Points are spent together with inventory changes, which are not cached
+            CharacterCache.flush(id, con);
+        } else {
+            SqlUtils.sumInt("points", value, TABLE, id, con);
+        }
     }
 
     public static void setTicketsCash(short value, int id, ConnectionRef ... con) {
-        SqlUtils.setShort("tickets_kash", value, TABLE, id, con);
+        setShort("tickets_kash", value, id, con);
+        CharacterCache.flush(id, con);
     }
 
     public static void setTicketsPoints(short value, int id, ConnectionRef ... con) {
-        SqlUtils.setShort("tickets_points", value, TABLE, id, con);
+        setShort("tickets_points", value, id, con);
+        CharacterCache.flush(id, con);
     }
 
     public static void setFace(short value, int id, ConnectionRef ... con) {
-        SqlUtils.setShort("face", value, TABLE, id, con);
+        setShort("face", value, id, con);
     }
 
     public static void setStatsPoints(short value, int id, ConnectionRef ... con) {
-        SqlUtils.setShort("stats_points", value, TABLE, id, con);
+        setShort("stats_points", value, id, con);
     }
 
     public static void setStats(PlayerStats stats, int id, ConnectionRef ... con) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("stats_running", stats.getRunning());
+        changes.put("stats_endurance", stats.getEndurance());
+        changes.put("stats_agility", stats.getAgility());
+        changes.put("stats_ball_control", stats.getBallControl());
+        changes.put("stats_dribbling", stats.getDribbling());
+        changes.put("stats_stealing", stats.getStealing());
+        changes.put("stats_tackling", stats.getTackling());
+        changes.put("stats_heading", stats.getHeading());
+        changes.put("stats_short_shots", stats.getShortShots());
+        changes.put("stats_long_shots", stats.getLongShots());
+        changes.put("stats_crossing", stats.getCrossing());
+        changes.put("stats_short_passes", stats.getShortPasses());
+        changes.put("stats_long_passes", stats.getLongPasses());
+        changes.put("stats_marking", stats.getMarking());
+        changes.put("stats_goalkeeping", stats.getGoalkeeping());
+        changes.put("stats_punching", stats.getPunching());
+        changes.put("stats_defense", stats.getDefense());
+
+        if (setCached(changes, id)) {
+            return;
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "UPDATE " + TABLE + " SET stats_running = ?, stats_endurance = ?, " +
                     "stats_agility = ?, stats_ball_control = ?, stats_dribbling = ?," +
@@ -735,11 +865,13 @@ public class PlayerInfo {
     }
 
     public static void sumStatsPoints(short value, int id, ConnectionRef ... con) {
-        SqlUtils.sumShort("stats_points", value, TABLE, id, con);
+        if (!CharacterCache.get(id).filter(r -> r.sumShort("stats_points", value)).isPresent()) {
+            SqlUtils.sumShort("stats_points", value, TABLE, id, con);
+        }
     }
 
     public static void setStatusMessage(String value, int id, ConnectionRef ... con) {
-        SqlUtils.setString("status_message", value, TABLE, id, con);
+        setString("status_message", value, id, con);
     }
 
     public static void addInventoryItem(Item item, int id, ConnectionRef ... con) {
@@ -895,11 +1027,61 @@ public class PlayerInfo {
         }
     }
 
+    /** Written immediately, it is not part of the cached record. */
     public static void setFriendsList(FriendsList value, int id, ConnectionRef ... con) {
         SqlUtils.setString("friends_list", value.toString(), TABLE, id, con);
     }
 
     public static void setIgnoredList(IgnoredList value, int id, ConnectionRef ... con) {
-        SqlUtils.setString("ignored_list", value.toString(), TABLE, id, con);
+        setString("ignored_list", value.toString(), id, con);
+    }
+
+    // cached column accessors. Fall back to the database if the character is not cached
+
+    private static short getShort(String column, int id, ConnectionRef ... con) {
+        return CharacterCache.get(id).map(r -> r.getShort(column))
+                .orElseGet(() -> SqlUtils.getShort(column, TABLE, id, con));
+    }
+
+    private static int getInt(String column, int id, ConnectionRef ... con) {
+        return CharacterCache.get(id).map(r -> r.getInt(column))
+                .orElseGet(() -> SqlUtils.getInt(column, TABLE, id, con));
+    }
+
+    private static boolean getBoolean(String column, int id, ConnectionRef ... con) {
+        return CharacterCache.get(id).map(r -> r.getBoolean(column))
+                .orElseGet(() -> SqlUtils.getBoolean(column, TABLE, id, con));
+    }
+
+    private static String getString(String column, int id, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(id);
+        return record.isPresent() ? record.get().getString(column) :
+                SqlUtils.getString(column, TABLE, id, con);
+    }
+
+    private static boolean setCached(Map<String, Object> changes, int id) {
+        return CharacterCache.get(id).filter(r -> r.set(changes)).isPresent();
+    }
+
+    private static boolean setCached(String column, Object value, int id) {
+        return CharacterCache.get(id).filter(r -> r.set(column, value)).isPresent();
+    }
+
+    private static void setShort(String column, short value, int id, ConnectionRef ... con) {
+        if (!setCached(column, value, id)) {
+            SqlUtils.setShort(column, value, TABLE, id, con);
+        }
+    }
+
+    private static void setBoolean(String column, boolean value, int id, ConnectionRef ... con) {
+        if (!setCached(column, value, id)) {
+            SqlUtils.setBoolean(column, value, TABLE, id, con);
+        }
+    }
+
+    private static void setString(String column, String value, int id, ConnectionRef ... con) {
+        if (!setCached(column, value, id)) {
+            SqlUtils.setString(column, value, TABLE, id, con);
+        }
     }
 }
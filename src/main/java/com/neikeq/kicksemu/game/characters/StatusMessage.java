@@ -26,6 +26,7 @@ public class StatusMessage {
 
         if (result == 0) {
             PlayerInfo.setStatusMessage(statusMessage, session.getPlayerId());
+            session.invalidateLobbyListEntry();
         }
 
         session.send(MessageBuilder.statusMessage(statusMessage, result));
@@ -113,14 +113,14 @@ class CharacterValidator {
     }
 
     private static boolean containsValidItems(CharacterBase cBase) {
-        Optional<ItemFree> head = TableManager.getItemFree(fi ->
-                (fi.getId() == cBase.getDefaultHead()) && (fi.getType() == ItemType.HEAD));
-        Optional<ItemFree> shirt = TableManager.getItemFree(fi ->
-                (fi.getId() == cBase.getDefaultShirts()) && (fi.getType() == ItemType.SHIRTS));
-        Optional<ItemFree> pant = TableManager.getItemFree(fi ->
-                (fi.getId() == cBase.getDefaultPants()) && (fi.getType() == ItemType.PANTS));
-        Optional<ItemFree> shoes = TableManager.getItemFree(fi ->
-                (fi.getId() == cBase.getDefaultShoes()) && (fi.getType() == ItemType.SHOES));
+        Optional<ItemFree> head = TableManager.getItemFree(cBase.getDefaultHead())
+                .filter(fi -> fi.getType() == ItemType.HEAD);
+        Optional<ItemFree> shirt = TableManager.getItemFree(cBase.getDefaultShirts())
+                .filter(fi -> fi.getType() == ItemType.SHIRTS);
+        Optional<ItemFree> pant = TableManager.getItemFree(cBase.getDefaultPants())
+                .filter(fi -> fi.getType() == ItemType.PANTS);
+        Optional<ItemFree> shoes = TableManager.getItemFree(cBase.getDefaultShoes())
+                .filter(fi -> fi.getType() == ItemType.SHOES);
 
         return head.isPresent() && shirt.isPresent() && pant.isPresent() && shoes.isPresent();
     }
@@ -2,6 +2,8 @@ package com.neikeq.kicksemu.game.chat;
 
 import com.neikeq.kicksemu.game.characters.CharacterUtils;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
+import com.neikeq.kicksemu.game.lobby.LobbyManager;
+import com.neikeq.kicksemu.game.misc.Moderation;
 import com.neikeq.kicksemu.game.misc.ignored.IgnoredManager;
 import com.neikeq.kicksemu.game.rooms.messages.ClubRoomMessages;
 import com.neikeq.kicksemu.game.servers.ServerType;
@@ -48,7 +50,7 @@ public class ChatCommands {
                     .ifPresent(room -> {
                         int playerId = session.getPlayerId();
 
-                        if ((room.getMaster() == playerId) || PlayerInfo.isModerator(playerId)) {
+                        if ((room.getMaster() == playerId) || session.isModerator()) {
                             int targetId = CharacterUtils.getCharacterIdByName(args[1]);
 
                             if ((targetId > 0) && (targetId != room.getMaster()) &&
@@ -78,7 +80,7 @@ public class ChatCommands {
                 return;
             }
 
-            TableManager.getLevelInfo(c -> c.getLevel() == requestedLevel).ifPresent(lvlInfo -> {
+            TableManager.getLevelInfo(requestedLevel).ifPresent(lvlInfo -> {
                 int expForAskedLvl = lvlInfo.getExperience();
                 final int exp = PlayerInfo.getExperience(playerId, con);
 
@@ -129,7 +131,7 @@ public class ChatCommands {
         RoomManager.getRoomById(session.getRoomId())
                 .filter(Room::isInLobbyScreen)
                 .ifPresent(room -> {
-                    if ((room.getMaster() == playerId) || PlayerInfo.isModerator(playerId)) {
+                    if ((room.getMaster() == playerId) || session.isModerator()) {
                         int targetId = CharacterUtils.getCharacterIdByName(args[1]);
 
                         if (targetId != session.getPlayerId()) {
@@ -150,7 +152,7 @@ public class ChatCommands {
     private static void onPunish(Session session, String ... args) {
         if (args.length < 2) return;
 
-        if (PlayerInfo.isModerator(session.getPlayerId())) {
+        if (session.isModerator()) {
             int targetId = CharacterUtils.getCharacterIdByName(args[1]);
 
             MutableBoolean targetFound = new MutableBoolean(false);
@@ -171,7 +173,7 @@ public class ChatCommands {
     }
 
     private static void onNotice(Session session, String ... args) {
-        if (PlayerInfo.isModerator(session.getPlayerId())) {
+        if (session.isModerator()) {
             StringBuilder message = new StringBuilder();
 
             for (int i = 1; i < args.length; i++) {
@@ -186,7 +188,7 @@ public class ChatCommands {
     private static void onObserver(Session session) {
         int playerId = session.getPlayerId();
 
-        if (PlayerInfo.isModerator(playerId)) {
+        if (session.isModerator()) {
             Optional<Room> maybeRoom = Optional.empty();
 
             if (session.getRoomId() > 0) {
@@ -218,9 +220,11 @@ public class ChatCommands {
     private static void onVisible(Session session) {
         int playerId = session.getPlayerId();
 
-        if (PlayerInfo.isModerator(playerId)) {
-            boolean visible = !PlayerInfo.isVisible(playerId);
+        if (session.isModerator()) {
+            boolean visible = !session.isVisible();
             PlayerInfo.setVisible(visible, playerId);
+            session.setVisible(visible);
+            LobbyManager.getMainLobby().onVisibilityChanged(playerId, session.isVisibleInLobby());
 
             ChatUtils.sendServerMessage(session,
                     "Visible mode " + (visible ? "enabled." : "disabled."));
@@ -242,7 +246,7 @@ public class ChatCommands {
             return;
         }
 
-        if (PlayerInfo.isModerator(session.getPlayerId())) {
+        if (session.isModerator()) {
             try {
                 String[] duration = args[1].split(":");
                 int minutes = Integer.valueOf(duration[0]) * 60;
@@ -291,7 +295,7 @@ public class ChatCommands {
             return;
         }
 
-        if (PlayerInfo.isModerator(session.getPlayerId())) {
+        if (session.isModerator()) {
             try {
                 String[] duration = args[1].split(":");
                 int minutes = Integer.valueOf(duration[0]) * 60;
@@ -425,6 +429,24 @@ public class ChatCommands {
         }
     }
 
+    private static void onReload(Session session) {
+        if (session.isModerator()) {
+            ChatUtils.sendServerMessage(session, "Reloading tables...");
+
+            TableManager.reload().thenAccept(reloaded ->
+                    ChatUtils.sendServerMessage(session, reloaded ?
+                            "Tables reloaded." : "Tables could not be reloaded."));
+        }
+    }
+
+    private static void onReloadBans(Session session) {
+        if (session.isModerator()) {
+            Moderation.reloadAsync().thenAccept(reloaded ->
+                    ChatUtils.sendServerMessage(session, reloaded ?
+                            "Bans reloaded." : "Bans could not be reloaded."));
+        }
+    }
+
     public static void initialize() {
         commands.put("host", ChatCommands::onMaster);
         commands.put("progress", ChatCommands::onProgress);
@@ -441,6 +463,8 @@ public class ChatCommands {
         commands.put("challenge", ChatCommands::onChallenge);
         commands.put("gt", (s, a) -> onGt(s));
         commands.put("ct", (s, a) -> onCt(s));
+        commands.put("reload", (s, a) -> onReload(s));
+        commands.put("reloadbans", (s, a) -> onReloadBans(s));
     }
 
     @FunctionalInterface
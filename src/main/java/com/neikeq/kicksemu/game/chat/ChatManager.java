@@ -2,34 +2,31 @@ package com.neikeq.kicksemu.game.chat;
 
 import com.neikeq.kicksemu.game.characters.CharacterUtils;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
-import com.neikeq.kicksemu.game.clubs.MemberInfo;
+import com.neikeq.kicksemu.game.clubs.ClubRoster;
 import com.neikeq.kicksemu.game.lobby.Lobby;
 import com.neikeq.kicksemu.game.rooms.RoomManager;
 import com.neikeq.kicksemu.game.sessions.Session;
+import com.neikeq.kicksemu.game.sessions.SessionBroadcaster;
 import com.neikeq.kicksemu.game.users.UserInfo;
 import com.neikeq.kicksemu.network.packets.in.ClientMessage;
 import com.neikeq.kicksemu.network.packets.out.MessageBuilder;
 import com.neikeq.kicksemu.network.packets.out.ServerMessage;
 import com.neikeq.kicksemu.network.server.ServerManager;
 
-import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class ChatManager {
 
     public static void chatMessage(Session session, ClientMessage msg) {
         msg.ignoreBytes(6);
 
-        int playerId = session.getPlayerId();
-
         String name = msg.readString(15);
         MessageType type = MessageType.fromInt(msg.readByte());
         String message = msg.readString(67);
 
-        if ((type != null) && !Flood.isPlayerLocked(playerId) &&
-                !Flood.onPlayerChat(playerId)) {
+        if ((type != null) && !session.getChatFlood().onPlayerChat()) {
             switch (type) {
                 case NORMAL:
                     handleNormalMessage(session, name, message);
@@ -57,17 +54,12 @@ public class ChatManager {
             if (!message.isEmpty()) {
                 Lobby lobby = session.getCurrentLobby();
 
-                MessageType type = PlayerInfo.isModerator(playerId) ?
+                MessageType type = session.isModerator() ?
                         MessageType.MODERATOR : MessageType.NORMAL;
 
-                lobby.getPlayers().stream()
-                        .filter(id -> !PlayerInfo.getIgnoredList(id).containsPlayer(playerId))
-                        .forEach(targetId ->
-                                ServerManager.getSession(targetId).ifPresent(targetSession -> {
-                                    ServerMessage msg = MessageBuilder.chatMessage(playerId,
-                                            name, type, message);
-                                    targetSession.sendAndFlush(msg);
-                                }));
+                ServerMessage msg = MessageBuilder.chatMessage(playerId, name, type, message);
+                lobby.broadcast(msg,
+                        id -> !PlayerInfo.getIgnoredList(id).containsPlayer(playerId));
             }
         }
     }
@@ -126,22 +118,15 @@ public class ChatManager {
 
     private static void onMessageClub(Session session, String name, String message) {
         int playerId = session.getPlayerId();
-        int clubId = MemberInfo.getClubId(playerId);
+        int clubId = session.getClubId();
 
         if ((clubId > 0) && session.getCache().getName().equals(name)) {
             if (!message.isEmpty()) {
-                List<Session> clubSessions = ServerManager.getPlayers().values().stream()
-                        .filter(s -> MemberInfo.getClubId(s.getPlayerId()) == clubId)
-                        .collect(Collectors.toList());
+                Set<Session> clubSessions = ClubRoster.getOnlineMembers(clubId);
 
                 if (clubSessions.size() > 1) {
                     ServerMessage msg = MessageBuilder.chatMessage(playerId, name, MessageType.CLUB, message);
-
-                    try {
-                        clubSessions.forEach(s -> s.sendAndFlush(msg.retain()));
-                    } finally {
-                        msg.release();
-                    }
+                    SessionBroadcaster.broadcast(msg, clubSessions.stream());
                 } else {
                     ChatUtils.sendServerMessage(session, "No club members connected.");
                 }
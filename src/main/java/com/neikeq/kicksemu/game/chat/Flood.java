@@ -2,49 +2,84 @@ package com.neikeq.kicksemu.game.chat;
 
 import com.neikeq.kicksemu.utils.DateUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-class Flood {
-
-    private static final Map<Integer, Long> lockedPlayers = new HashMap<>();
-    private static final Map<Integer, ArrayList<Long>> chatHistory =  new HashMap<>();
+/**
+ * Chat flood control of a single session.<br>
+ * The times of the last messages are kept in a ring buffer, and the player is locked
+ * when more than {@value #CHAT_LIMIT} messages are sent in less than {@value #TIME_LIMIT} ms.
+ */
+public class Flood {
 
     private static final int LOCK_TIME = 10000;
     private static final int CHAT_LIMIT = 4;
     private static final int TIME_LIMIT = 3000;
 
-    private static void lockPlayer(int playerId) {
-        lockedPlayers.put(playerId, DateUtils.currentTimeMillis() + LOCK_TIME);
-    }
+    private static final AtomicLong totalDropped = new AtomicLong();
+    private static final AtomicLong totalLocks = new AtomicLong();
 
-    public static boolean onPlayerChat(int playerId) {
-        Long currentTime = DateUtils.currentTimeMillis();
+    private final long[] chatTimes = new long[CHAT_LIMIT];
+    /** Index of the oldest time in the ring buffer. */
+    private int oldest;
+    private int count;
+    private long lockExpiration;
 
-        if (!chatHistory.containsKey(playerId)) {
-            chatHistory.put(playerId, new ArrayList<>());
-        }
+    private int droppedMessages;
+    private int locks;
+
+    /**
+     * Registers a chat message sent by the player.
+     * @return true if the player is locked and the message must be dropped
+     */
+    public synchronized boolean onPlayerChat() {
+        long currentTime = DateUtils.currentTimeMillis();
 
-        List<Long> chatTimes = chatHistory.get(playerId);
+        if (lockExpiration > currentTime) {
+            return dropMessage();
+        }
 
-        if (chatTimes.size() > CHAT_LIMIT) {
-            chatTimes.remove(0);
+        if ((count >= CHAT_LIMIT) && ((currentTime - chatTimes[oldest]) < TIME_LIMIT)) {
+            lockExpiration = currentTime + LOCK_TIME;
+            locks++;
+            totalLocks.incrementAndGet();
+            return dropMessage();
         }
 
-        if ((chatTimes.size() >= CHAT_LIMIT) && ((currentTime - chatTimes.get(0)) < TIME_LIMIT)) {
-            lockPlayer(playerId);
+        // Overwrite the oldest time once the buffer is full
+        chatTimes[(oldest + count) % CHAT_LIMIT] = currentTime;
+
+        if (count < CHAT_LIMIT) {
+            count++;
         } else {
-            chatTimes.add(currentTime);
+            oldest = (oldest + 1) % CHAT_LIMIT;
         }
 
-        return isPlayerLocked(playerId);
+        return false;
+    }
+
+    private boolean dropMessage() {
+        droppedMessages++;
+        totalDropped.incrementAndGet();
+        return true;
     }
 
-    public static boolean isPlayerLocked(int playerId) {
-        Long expireTime = lockedPlayers.get(playerId);
+    public synchronized boolean isPlayerLocked() {
+        return lockExpiration > DateUtils.currentTimeMillis();
+    }
+
+    public synchronized int getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    public synchronized int getLocks() {
+        return locks;
+    }
+
+    public static long getTotalDroppedMessages() {
+        return totalDropped.get();
+    }
 
-        return (expireTime != null) && (expireTime > DateUtils.currentTimeMillis());
+    public static long getTotalLocks() {
+        return totalLocks.get();
     }
 }
@@ -1,25 +1,23 @@
 package com.neikeq.kicksemu.game.clubs;
 
 import com.neikeq.kicksemu.game.chat.MessageType;
-import com.neikeq.kicksemu.game.rooms.RoomManager;
 import com.neikeq.kicksemu.game.sessions.Session;
+import com.neikeq.kicksemu.game.sessions.SessionBroadcaster;
 import com.neikeq.kicksemu.network.packets.in.ClientMessage;
 import com.neikeq.kicksemu.network.packets.out.MessageBuilder;
 import com.neikeq.kicksemu.network.packets.out.ServerMessage;
-import com.neikeq.kicksemu.network.server.ServerManager;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class ClubManager {
 
     public static void clubInfo(Session session) {
-        int clubId = MemberInfo.getClubId(session.getPlayerId());
+        int clubId = ClubRoster.refresh(session);
         session.send(MessageBuilder.clubInfo(clubId));
     }
 
@@ -45,38 +43,18 @@ public class ClubManager {
     }
 
     public static void onMemberConnectedStateChanged(Session session) {
-        int playerId = session.getPlayerId();
-        int clubId = MemberInfo.getClubId(playerId);
-
-        boolean disconnected = !session.isAuthenticated();
-
-        List<Integer> members = (clubId > 0) ?
-                ClubInfo.getMembers(clubId, 0, 30) : new ArrayList<>();
-
-        members.remove((Integer) playerId);
+        List<Session> members = ClubRoster.getOnlineMembers(session.getClubId()).stream()
+                .filter(member -> member != session)
+                .collect(Collectors.toList());
 
         if (!members.isEmpty()) {
+            boolean disconnected = !session.isAuthenticated();
+
             String message = disconnected ? " has been disconnected" : " is online";
             ServerMessage notification = MessageBuilder.chatMessage(MessageType.SERVER_MESSAGE,
                     session.getCache().getName() + message);
 
-            try {
-                Predicate<Integer> filter = ServerManager::isPlayerConnected;
-
-                if (disconnected) {
-                    RoomManager.getRoomById(session.getRoomId())
-                            .map(room -> filter.and(member -> !room.isPlayerIn(member)))
-                            .orElse(filter);
-                }
-
-                members.stream().filter(filter).forEach(member ->
-                    ServerManager.getSession(member).ifPresent(s ->
-                            s.sendAndFlush(notification.retain())
-                    )
-                );
-            } finally {
-                notification.release();
-            }
+            SessionBroadcaster.broadcast(notification, members.stream());
         }
     }
 }
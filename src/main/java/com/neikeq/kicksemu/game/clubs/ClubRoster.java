@@ -0,0 +1,75 @@
+package com.neikeq.kicksemu.game.clubs;
+
+import com.neikeq.kicksemu.game.sessions.Session;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the club members connected to this server.<br>
+ * The club of a session is read on game login and refreshed when the player requests
+ * the club information or creates a club room, since memberships are managed outside
+ * of the server.
+ */
+public class ClubRoster {
+
+    private static final Map<Integer, Set<Session>> ONLINE_MEMBERS = new ConcurrentHashMap<>();
+
+    /** Reads the club of the session player from the database and indexes the session. */
+    public static int refresh(Session session) {
+        int clubId = MemberInfo.getClubId(session.getPlayerId());
+
+        synchronized (session.getLocker()) {
+            int oldClubId = session.getClubId();
+
+            if (oldClubId != clubId) {
+                remove(oldClubId, session);
+                session.setClubId(clubId);
+            }
+
+            add(clubId, session);
+        }
+
+        return clubId;
+    }
+
+    public static void removeMember(Session session) {
+        synchronized (session.getLocker()) {
+            remove(session.getClubId(), session);
+            session.setClubId(-1);
+        }
+    }
+
+    /** Returns the sessions of the club members connected to this server. */
+    public static Set<Session> getOnlineMembers(int clubId) {
+        Set<Session> members = ONLINE_MEMBERS.get(clubId);
+        return (members != null) ? Collections.unmodifiableSet(members) :
+                Collections.emptySet();
+    }
+
+    private static void add(int clubId, Session session) {
+        if (clubId > 0) {
+            ONLINE_MEMBERS.compute(clubId, (id, members) -> {
+                Set<Session> result = (members != null) ? members :
+                        ConcurrentHashMap.newKeySet();
+                result.add(session);
+                return result;
+            });
+        }
+    }
+
+    private static void remove(int clubId, Session session) {
+        if (clubId > 0) {
+            ONLINE_MEMBERS.computeIfPresent(clubId, (id, members) -> {
+                members.remove(session);
+                return members.isEmpty() ? null : members;
+            });
+        }
+    }
+
+    private ClubRoster() {
+        throw new AssertionError();
+    }
+}
@@ -29,8 +29,8 @@ public class ClubShop {
 
             ClubItemRequest request = new ClubItemRequest(msg);
 
-            Optional<ItemInfo> maybeItemInfo = TableManager.getItemInfo(c ->
-                    c.getId() == request.getProductId());
+            Optional<ItemInfo> maybeItemInfo = TableManager
+                    .getItemInfo(request.getProductId());
 
             Optional<MessageException> exception = maybeItemInfo.map(itemInfo -> {
                 MessageException ex = null;
@@ -10,6 +10,7 @@ import com.neikeq.kicksemu.utils.table.Row;
 import com.neikeq.kicksemu.utils.table.TableReader;
 import org.quartz.SchedulerException;
 
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -40,41 +41,44 @@ public class GameEvents {
 
     private static void initializeSchedule(Map<Integer, SortedSet<DayTimeRange>> schedule,
                                            String path) {
-        TableReader reader = new TableReader(path);
-
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            Row row = maybeRow.get();
-
-            row.nextColumn().ifPresent(strDay -> {
-                try {
-                    int dayOfWeek = DateUtils.stringToDayOfWeek(strDay);
-
-                    if (!schedule.containsKey(dayOfWeek)) {
-                        schedule.put(dayOfWeek, new TreeSet<>());
+        // Schedules are optional, a table that can not be read is left empty
+        try (TableReader reader = new TableReader(path)) {
+            Optional<Row> maybeRow;
+            while ((maybeRow = reader.nextRow()).isPresent()) {
+                Row row = maybeRow.get();
+
+                row.nextColumn().ifPresent(strDay -> {
+                    try {
+                        int dayOfWeek = DateUtils.stringToDayOfWeek(strDay);
+
+                        if (!schedule.containsKey(dayOfWeek)) {
+                            schedule.put(dayOfWeek, new TreeSet<>());
+                        }
+
+                        SortedSet<DayTimeRange> schedules = schedule.get(dayOfWeek);
+
+                        for (int i = 0; (i < MAX_SCHEDULES_PER_DAY) && row.hasNext(); i++) {
+                            // Format: HH:mm/HH:mm
+                            row.nextColumn().filter(s -> !s.isEmpty()).ifPresent(strSchedule -> {
+                                try {
+                                    String[] range = strSchedule.split("/");
+                                    SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
+                                    Date start = timeFormat.parse(range[0]);
+                                    Date end = timeFormat.parse(range[1]);
+                                    schedules.add(new DayTimeRange(start, end));
+                                } catch (IndexOutOfBoundsException | ParseException e) {
+                                    Output.println("Invalid schedule format at " + path + ": " +
+                                            row, Level.WARNING);
+                                }
+                            });
+                        }
+                    } catch (IllegalArgumentException e) {
+                        Output.println("Skipping schedule row: " + e.getMessage(), Level.WARNING);
                     }
-
-                    SortedSet<DayTimeRange> schedules = schedule.get(dayOfWeek);
-
-                    for (int i = 0; (i < MAX_SCHEDULES_PER_DAY) && row.hasNext(); i++) {
-                        // Format: HH:mm/HH:mm
-                        row.nextColumn().filter(s -> !s.isEmpty()).ifPresent(strSchedule -> {
-                            try {
-                                String[] range = strSchedule.split("/");
-                                SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
-                                Date start = timeFormat.parse(range[0]);
-                                Date end = timeFormat.parse(range[1]);
-                                schedules.add(new DayTimeRange(start, end));
-                            } catch (IndexOutOfBoundsException | ParseException e) {
-                                Output.println("Invalid schedule format at " + path + ": " +
-                                        row, Level.WARNING);
-                            }
-                        });
-                    }
-                } catch (IllegalArgumentException e) {
-                    Output.println("Skipping schedule row: " + e.getMessage(), Level.WARNING);
-                }
-            });
+                });
+            }
+        } catch (UncheckedIOException e) {
+            Output.println(e.getMessage(), Level.WARNING);
         }
     }
 
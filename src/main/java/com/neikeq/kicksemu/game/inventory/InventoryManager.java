@@ -186,7 +186,7 @@ public class InventoryManager {
 
     private static short deactivateItem(Session session, Item item) {
         return (item != null) ?
-                TableManager.getItemInfo(o -> o.getId() == item.getId()).map(itemInfo -> {
+                TableManager.getItemInfo(item.getId()).map(itemInfo -> {
                     // Deactivate item
                     ItemType itemType = ItemType.fromInt(itemInfo.getType())
                             .orElseThrow(IllegalStateException::new);
@@ -213,12 +213,12 @@ public class InventoryManager {
             Item item = items.get(inventoryId);
 
             result = item.getExpiration().isPermanent() ?
-                    TableManager.getItemInfo(ii -> ii.getId() == item.getId())
+                    TableManager.getItemInfo(item.getId())
                             .map(itemInfo -> {
-                                Optional<OptionInfo> bonusOne = TableManager.getOptionInfo(oi ->
-                                        oi.getId() == item.getBonusOne());
-                                Optional<OptionInfo> bonusTwo = TableManager.getOptionInfo(oi ->
-                                        oi.getId() == item.getBonusTwo());
+                                Optional<OptionInfo> bonusOne = TableManager
+                                        .getOptionInfo(item.getBonusOne());
+                                Optional<OptionInfo> bonusTwo = TableManager
+                                        .getOptionInfo(item.getBonusTwo());
 
                                 int itemPrice = InventoryUtils.getItemPrice(itemInfo,
                                         item.getExpiration(), Payment.POINTS, bonusOne, bonusTwo);
@@ -57,8 +57,8 @@ public class Shop {
             short position = session.getCache().getPosition();
 
             Optional<MessageException> e = TableManager
-                    .getSkillInfo(s -> (s.getId() == request.getProductId()) &&
-                            s.isCompatiblePosition(position))
+                    .getSkillInfo(request.getProductId())
+                    .filter(s -> s.isCompatiblePosition(position))
                     .map(skillInfo -> checkSkillInfo(skillInfo, request, playerId))
                     .orElse(Optional
                             .of(new MessageException("Skill not found or invalid pos.", -1)));
@@ -117,7 +117,7 @@ public class Shop {
             }
 
             Optional<MessageException> e = TableManager
-                    .getCeleInfo(c -> c.getId() == request.getProductId())
+                    .getCeleInfo(request.getProductId())
                     .map(celeInfo -> checkCeleInfo(celeInfo, request, playerId))
                     .orElse(Optional.of(new MessageException("Celebration does not exist.", -1)));
 
@@ -177,7 +177,7 @@ public class Shop {
             }
 
             Optional<MessageException> e = TableManager
-                    .getLearnInfo(c -> c.getId() == request.getProductId())
+                    .getLearnInfo(request.getProductId())
                     .map(learnInfo -> checkLearnInfo(learnInfo, request, playerId))
                     .orElse(Optional.of(new MessageException("Training does not exist.", -1)));
 
@@ -239,7 +239,7 @@ public class Shop {
             }
 
             Optional<MessageException> e = TableManager
-                    .getItemInfo(c -> c.getId() == request.getProductId())
+                    .getItemInfo(request.getProductId())
                     .map(itemInfo -> {
                         MessageException maybeException = null;
 
@@ -330,10 +330,8 @@ public class Shop {
                                             ItemInfo itemInfo, short level)
             throws MessageException {
 
-        Optional<OptionInfo> optionInfoOne = TableManager
-                .getOptionInfo(c -> c.getId() == request.getBonusOne());
-        Optional<OptionInfo> optionInfoTwo = TableManager
-                .getOptionInfo(c -> c.getId() == request.getBonusTwo());
+        Optional<OptionInfo> optionInfoOne = TableManager.getOptionInfo(request.getBonusOne());
+        Optional<OptionInfo> optionInfoTwo = TableManager.getOptionInfo(request.getBonusTwo());
 
         if (request.hasInvalidBonus(optionInfoOne, optionInfoTwo)) {
             throw new MessageException("Invalid bonus.", -1);
@@ -375,7 +373,7 @@ public class Shop {
                                             Optional<OptionInfo> maybeTwo)
             throws MessageException {
 
-        Optional<MessageException> e = TableManager.getBonusInfo(b -> b.getType() == item.getType())
+        Optional<MessageException> e = TableManager.getBonusInfo(item.getType())
                 .map(itemBonusInfo -> {
                     MessageException me = null;
 
@@ -583,7 +581,7 @@ public class Shop {
     }
 
     private static boolean isInvalidUniformItem(int itemId, ItemType requiredType) {
-        return TableManager.getItemInfo(item -> item.getId() == itemId)
+        return TableManager.getItemInfo(itemId)
                 .map(itemInfo ->
                         (itemInfo.getGender() != Animation.ANY) ||
                         (itemInfo.getType() != requiredType.toInt())
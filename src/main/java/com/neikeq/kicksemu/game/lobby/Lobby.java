@@ -1,11 +1,17 @@
 package com.neikeq.kicksemu.game.lobby;
 
-import java.util.List;
+import com.neikeq.kicksemu.network.packets.out.ServerMessage;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
 
 public interface Lobby {
 
-    List<Integer> getPlayers();
+    Set<Integer> getPlayers();
 
     void addPlayer(int playerId);
     void removePlayer(int playerId);
+
+    /** Sends the message, encoded once, to the players that pass the filter. */
+    void broadcast(ServerMessage msg, IntPredicate filter);
 }
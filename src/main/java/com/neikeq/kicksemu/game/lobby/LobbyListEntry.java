@@ -0,0 +1,62 @@
+package com.neikeq.kicksemu.game.lobby;
+
+import com.neikeq.kicksemu.game.characters.PlayerInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Encoded entry of a player in the lobby list.<br>
+ * Entries are cached by the player session and encoded again only when the version
+ * of the session changes, so a lobby page is built by copying the cached entries.
+ */
+public class LobbyListEntry {
+
+    private static final Charset CHARSET = Charset.forName("windows-1252");
+    private static final int NAME_LENGTH = 15;
+    private static final int STATUS_MESSAGE_LENGTH = 35;
+    private static final int SIZE = 8 + NAME_LENGTH + STATUS_MESSAGE_LENGTH;
+
+    private final int version;
+    private final byte[] bytes;
+
+    public static LobbyListEntry encode(int playerId, int version) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put((byte) 1);
+        buffer.putInt(playerId);
+        putString(buffer, PlayerInfo.getName(playerId), NAME_LENGTH);
+        buffer.putShort(PlayerInfo.getLevel(playerId));
+        buffer.put((byte) PlayerInfo.getPosition(playerId));
+        putString(buffer, PlayerInfo.getStatusMessage(playerId), STATUS_MESSAGE_LENGTH);
+
+        return new LobbyListEntry(version, buffer.array());
+    }
+
+    /** Writes the string truncated or padded with zeros to the specified length. */
+    private static void putString(ByteBuffer buffer, String value, int length) {
+        int end = buffer.position() + length;
+
+        if (value != null) {
+            byte[] bytes = value.getBytes(CHARSET);
+            buffer.put(bytes, 0, Math.min(bytes.length, length));
+        }
+
+        // The array is zeroed on allocation
+        buffer.position(end);
+    }
+
+    private LobbyListEntry(int version, byte[] bytes) {
+        this.version = version;
+        this.bytes = bytes;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+}
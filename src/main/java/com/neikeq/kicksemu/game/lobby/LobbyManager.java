@@ -1,14 +1,9 @@
 package com.neikeq.kicksemu.game.lobby;
 
 import com.neikeq.kicksemu.game.sessions.Session;
-import com.neikeq.kicksemu.io.Output;
-import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.network.packets.in.ClientMessage;
 import com.neikeq.kicksemu.network.packets.out.MessageBuilder;
-import com.neikeq.kicksemu.storage.ConnectionRef;
 
-import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 
 public class LobbyManager {
@@ -26,30 +21,21 @@ public class LobbyManager {
     }
 
     public static void lobbyList(Session session, ClientMessage msg) {
-        try (ConnectionRef con = ConnectionRef.ref()) {
-            List<Integer> visiblePlayers = getMainLobby().getVisiblePlayers(con);
+        List<Integer> visiblePlayers = getMainLobby().getVisiblePlayers();
 
-            byte pagesCount = (byte) Math.ceil(
-                    (double) visiblePlayers.size() / (double) PLAYERS_PER_PAGE);
+        byte pagesCount = (byte) Math.ceil(
+                (double) visiblePlayers.size() / (double) PLAYERS_PER_PAGE);
 
-            byte page = (byte) Math.min(msg.readByte(), pagesCount);
-            int indexFrom = page * PLAYERS_PER_PAGE;
-            int indexTo = indexFrom + 10;
+        byte page = (byte) Math.min(msg.readByte(), pagesCount);
+        int indexFrom = Math.min(page * PLAYERS_PER_PAGE, visiblePlayers.size());
+        int indexTo = Math.min(indexFrom + PLAYERS_PER_PAGE, visiblePlayers.size());
 
-            List<Integer> players = new ArrayList<>();
+        List<Integer> players = visiblePlayers.subList(indexFrom, indexTo);
 
-            for (int i = indexFrom; (i < indexTo) && (i < visiblePlayers.size()); i++) {
-                players.add(visiblePlayers.get(i));
-            }
-
-            if (!players.isEmpty()) {
-                Integer[] playersArray = new Integer[players.size()];
-
-                session.send(MessageBuilder.lobbyList(players.toArray(playersArray), page, con));
-            }
-        } catch (SQLException e) {
-            Output.println("Exception when handling lobby list message: " +
-                    e.getMessage(), Level.DEBUG);
+        if (!players.isEmpty()) {
+            // The entries are usually cached, so a connection is only used as a fallback
+            Integer[] playersArray = new Integer[players.size()];
+            session.send(MessageBuilder.lobbyList(players.toArray(playersArray), page));
         }
     }
 
@@ -1,22 +1,39 @@
 package com.neikeq.kicksemu.game.lobby;
 
-import com.neikeq.kicksemu.game.characters.PlayerInfo;
-import com.neikeq.kicksemu.storage.ConnectionRef;
+import com.neikeq.kicksemu.game.sessions.Session;
+import com.neikeq.kicksemu.game.sessions.SessionBroadcaster;
+import com.neikeq.kicksemu.network.packets.out.ServerMessage;
+import com.neikeq.kicksemu.network.server.ServerManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.IntPredicate;
 
 public class MainLobby implements Lobby {
 
-    private final List<Integer> players = new ArrayList<>();
+    private final Set<Integer> players = new LinkedHashSet<>();
+    /** Players shown in the lobby list, in the order they entered the lobby. */
+    private final Set<Integer> visiblePlayers = new LinkedHashSet<>();
     private final Object locker = new Object();
 
+    /** Copy of the visible players, or null if they changed since it was made. */
+    private List<Integer> visibleSnapshot;
+
     @Override
     public void addPlayer(int playerId) {
         synchronized (locker) {
-            if (!players.contains(playerId)) {
-                players.add(playerId);
+            if (players.add(playerId)) {
+                boolean visible = ServerManager.getSession(playerId)
+                        .map(Session::isVisibleInLobby).orElse(true);
+
+                if (visible) {
+                    visiblePlayers.add(playerId);
+                    visibleSnapshot = null;
+                }
             }
         }
     }
@@ -24,24 +41,69 @@ public class MainLobby implements Lobby {
     @Override
     public void removePlayer(int playerId) {
         synchronized (locker) {
-            int index = players.indexOf(playerId);
+            if (players.remove(playerId) && visiblePlayers.remove(playerId)) {
+                visibleSnapshot = null;
+            }
+        }
+    }
+
+    /** Must be called when a player in the lobby changes its visible mode. */
+    public void onVisibilityChanged(int playerId, boolean visible) {
+        synchronized (locker) {
+            if (!players.contains(playerId)) {
+                return;
+            }
+
+            boolean changed = visible ?
+                    visiblePlayers.add(playerId) : visiblePlayers.remove(playerId);
 
-            if (index >= 0) {
-                players.remove(index);
+            if (changed) {
+                visibleSnapshot = null;
             }
         }
     }
 
-    public List<Integer> getPlayers() {
+    @Override
+    public void broadcast(ServerMessage msg, IntPredicate filter) {
+        List<Integer> recipients;
+
+        synchronized (locker) {
+            recipients = new ArrayList<>(players);
+        }
+
+        SessionBroadcaster.broadcast(msg, recipients, filter);
+    }
+
+    public Set<Integer> getPlayers() {
+        synchronized (locker) {
+            return Collections.unmodifiableSet(players);
+        }
+    }
+
+    public boolean isPlayerIn(int playerId) {
         synchronized (locker) {
-            return players;
+            return players.contains(playerId);
         }
     }
 
-    public List<Integer> getVisiblePlayers(ConnectionRef... con) {
+    public int getPlayersCount() {
         synchronized (locker) {
-            return players.stream().filter(id -> PlayerInfo.isVisibleInLobby(id, con))
-                    .collect(Collectors.toList());
+            return players.size();
+        }
+    }
+
+    /**
+     * Returns the players shown in the lobby list.<br>
+     * The list is immutable and is copied again only after the visible players changed.
+     */
+    public List<Integer> getVisiblePlayers() {
+        synchronized (locker) {
+            if (visibleSnapshot == null) {
+                visibleSnapshot = Collections.unmodifiableList(Arrays.asList(
+                        visiblePlayers.toArray(new Integer[visiblePlayers.size()])));
+            }
+
+            return visibleSnapshot;
         }
     }
 }
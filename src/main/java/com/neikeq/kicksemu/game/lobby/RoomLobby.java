@@ -1,39 +1,51 @@
 package com.neikeq.kicksemu.game.lobby;
 
+import com.neikeq.kicksemu.game.sessions.SessionBroadcaster;
+import com.neikeq.kicksemu.network.packets.out.ServerMessage;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
 
 public class RoomLobby implements Lobby {
 
-    private final List<Integer> players = new ArrayList<>();
+    private final Set<Integer> players = new LinkedHashSet<>();
     private final Object locker = new Object();
 
     private boolean teamChatEnabled = true;
 
-    public List<Integer> getPlayers() {
+    public Set<Integer> getPlayers() {
         synchronized (locker) {
-            return players;
+            return Collections.unmodifiableSet(players);
         }
     }
 
     @Override
     public void addPlayer(int playerId) {
         synchronized (locker) {
-            if (!players.contains(playerId)) {
-                players.add(playerId);
-            }
+            players.add(playerId);
         }
     }
 
     @Override
     public void removePlayer(int playerId) {
         synchronized (locker) {
-            int index = players.indexOf(playerId);
+            players.remove(playerId);
+        }
+    }
 
-            if (index >= 0) {
-                players.remove(index);
-            }
+    @Override
+    public void broadcast(ServerMessage msg, IntPredicate filter) {
+        List<Integer> recipients;
+
+        synchronized (locker) {
+            recipients = new ArrayList<>(players);
         }
+
+        SessionBroadcaster.broadcast(msg, recipients, filter);
     }
 
     public boolean isTeamChatEnabled() {
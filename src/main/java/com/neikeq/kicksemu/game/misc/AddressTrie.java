@@ -0,0 +1,96 @@
+package com.neikeq.kicksemu.game.misc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary trie of address prefixes, used to match an address against CIDR ranges.<br>
+ * Every prefix holds the ban rows stored for it and the latest of their expirations.
+ * Writes are synchronized while lookups are lock-free, so a lookup may not see
+ * a prefix that is being added at the same time.
+ */
+class AddressTrie {
+
+    private final Node root = new Node();
+    private final int bits;
+
+    /** Node where each ban row is stored, so the row can be moved or removed. */
+    private final Map<Integer, Node> rowNodes = new HashMap<>();
+
+    AddressTrie(int addressLength) {
+        bits = addressLength * 8;
+    }
+
+    /** Stores the ban row for the prefix, replacing the previous version of the row. */
+    synchronized void put(int rowId, byte[] address, int prefixLength, long expiration) {
+        Node node = root;
+        int length = Math.min(prefixLength, bits);
+
+        for (int i = 0; i < length; i++) {
+            int bit = bitAt(address, i);
+            Node child = node.children[bit];
+
+            if (child == null) {
+                child = new Node();
+                node.children[bit] = child;
+            }
+
+            node = child;
+        }
+
+        Node previous = rowNodes.put(rowId, node);
+
+        if ((previous != null) && (previous != node)) {
+            previous.removeRow(rowId);
+        }
+
+        node.putRow(rowId, expiration);
+    }
+
+    synchronized void remove(int rowId) {
+        Node node = rowNodes.remove(rowId);
+
+        if (node != null) {
+            node.removeRow(rowId);
+        }
+    }
+
+    /** @return the latest expiration of the prefixes matching the address, or 0 if none */
+    long find(byte[] address) {
+        Node node = root;
+        long expiration = node.expiration;
+
+        for (int i = 0; (i < bits) && (node != null); i++) {
+            node = node.children[bitAt(address, i)];
+
+            if (node != null) {
+                expiration = Math.max(expiration, node.expiration);
+            }
+        }
+
+        return expiration;
+    }
+
+    private static int bitAt(byte[] address, int index) {
+        return (address[index >> 3] >> (7 - (index & 7))) & 1;
+    }
+
+    private static class Node {
+
+        private final Node[] children = new Node[2];
+        /** Expiration of each ban row. Only accessed while holding the trie lock. */
+        private final Map<Integer, Long> rows = new HashMap<>();
+        private volatile long expiration;
+
+        private void putRow(int rowId, long rowExpiration) {
+            rows.put(rowId, rowExpiration);
+            expiration = Collections.max(rows.values());
+        }
+
+        private void removeRow(int rowId) {
+            rows.remove(rowId);
+            expiration = rows.isEmpty() ? 0 : Collections.max(rows.values());
+        }
+    }
+}
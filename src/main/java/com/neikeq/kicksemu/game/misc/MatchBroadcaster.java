@@ -15,52 +15,37 @@ import java.net.InetSocketAddress;
 public class MatchBroadcaster {
 
     public static void udpGame(Session session, ClientMessage msg) {
-        int targetId = msg.getTargetId();
+        UdpRelayTable relayTable = session.getRelayTable();
 
-        RoomManager.getRoomById(session.getRoomId()).ifPresent(room -> {
-            Session targetSession = room.getPlayer(targetId);
-
-            // If the player is in the room
-            if (targetSession != null) {
-                Channel ch = KicksEmu.getNettyUdpServer().getChannelFuture().channel();
-
-                try {
-                    String targetIp = targetSession.getRemoteAddress().getHostAddress();
-
-                    ch.writeAndFlush(new DatagramPacket(msg.getBody().readerIndex(0).retain(),
-                            new InetSocketAddress(targetIp, targetSession.getUdpPort())));
-                } finally {
-                    ch.closeFuture();
-                }
-            }
-        });
+        // If the player is in a room
+        if (relayTable != null) {
+            relay(session, msg, relayTable.getAddress(msg.getTargetId()));
+        }
     }
 
     public static void udpChallengeGame(Session session, ClientMessage msg) {
-        int targetId = msg.getTargetId();
-
         RoomManager.getRoomById(session.getRoomId()).map(r -> (ClubRoom) r).ifPresent(room ->
-                ChallengeOrganizer.getChallengeById(room.getChallengeId()).ifPresent(chl -> {
-                    Session targetSession = chl.getRoom().getPlayer(targetId);
-
-                    // If the player is in the room
-                    if (targetSession != null) {
-                        Channel ch = KicksEmu.getNettyUdpServer().getChannelFuture().channel();
-
-                        try {
-                            String ip = targetSession.getRemoteAddress().getHostAddress();
+                ChallengeOrganizer.getChallengeById(room.getChallengeId()).ifPresent(chl ->
+                        relay(session, msg, chl.getRoom().getRelayTable().getAddress(msg.getTargetId())))
+        );
+    }
 
-                            DatagramPacket packet = new DatagramPacket(
-                                    msg.getBody().readerIndex(0).retain(),
-                                    new InetSocketAddress(ip, targetSession.getUdpPort()));
+    /**
+     * Writes the packet without flushing.<br>
+     * The udp client handler flushes once after reading is complete.
+     */
+    private static void relay(Session session, ClientMessage msg, InetSocketAddress target) {
+        // If the target player is in the room
+        if (target != null) {
+            // The channel which received the packet, so the write stays in its event loop
+            Channel ch = session.getUdpChannel();
+
+            if (ch == null) {
+                ch = KicksEmu.getNettyUdpServer().getChannelFuture().channel();
+            }
 
-                            ch.writeAndFlush(packet);
-                        } finally {
-                            ch.closeFuture();
-                        }
-                    }
-                })
-        );
+            ch.write(new DatagramPacket(msg.getBody().readerIndex(0).retain(), target));
+        }
     }
 
     public static boolean isBroadcastEnabled() {
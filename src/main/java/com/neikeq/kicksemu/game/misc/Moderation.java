@@ -1,16 +1,157 @@
 package com.neikeq.kicksemu.game.misc;
 
+import com.neikeq.kicksemu.config.Configuration;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import com.neikeq.kicksemu.utils.DateUtils;
 
+import java.net.Inet4Address;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Blacklisted addresses and banned users.<br>
+ * Both lists are kept in memory so connections and logins are checked without querying
+ * the database. New and updated rows are loaded periodically, replacing their previous
+ * version even if it was shortened or lifted, and the lists are fully reloaded
+ * every {@value #FULL_RELOAD_INTERVAL} refreshes to drop deleted rows.
+ * Until the first load succeeds, the database is queried as a fallback.
+ */
 public class Moderation {
 
+    private static final int FULL_RELOAD_INTERVAL = 10;
+    /** Rows modified this long before the last refresh are read again, to tolerate clock skew. */
+    private static final long REFRESH_OVERLAP = 60000;
+
+    private static volatile BanLists banLists;
+
+    private static ScheduledExecutorService refreshScheduler;
+    private static long lastRefresh;
+    private static int refreshes;
+
+    public static void initialize() {
+        reload();
+
+        int interval = Configuration.getInt("game.bans.refresh");
+
+        refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bans-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        refreshScheduler.scheduleWithFixedDelay(Moderation::refresh,
+                interval, interval, TimeUnit.SECONDS);
+    }
+
+    /** Reloads both lists in the refresh thread, for moderator commands. */
+    public static CompletableFuture<Boolean> reloadAsync() {
+        return CompletableFuture.supplyAsync(Moderation::reload, refreshScheduler);
+    }
+
+    /** Replaces the lists with the rows currently in the database. */
+    private static synchronized boolean reload() {
+        long start = System.currentTimeMillis();
+        BanLists lists = new BanLists();
+
+        if (load(lists, -1)) {
+            banLists = lists;
+            lastRefresh = start;
+            refreshes = 0;
+            return true;
+        }
+
+        return false;
+    }
+
+    /** Loads the rows modified since the last refresh. */
+    private static synchronized void refresh() {
+        BanLists lists = banLists;
+
+        if ((lists == null) || (++refreshes >= FULL_RELOAD_INTERVAL)) {
+            reload();
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        if (load(lists, lastRefresh - REFRESH_OVERLAP)) {
+            lastRefresh = start;
+        }
+    }
+
+    /**
+     * Loads the active bans, or every row modified since the specified time,
+     * including expired ones, if it is not negative.
+     */
+    private static boolean load(BanLists lists, long modifiedSince) {
+        // Modified rows are loaded even if expired, so lifted bans replace the old ones
+        final String condition = (modifiedSince < 0) ? " WHERE expire > ?" : " WHERE created >= ?";
+        final String blacklistQuery = "SELECT id, remote_address, expire FROM blacklist" +
+                condition;
+        final String bansQuery = "SELECT id, user_id, expire FROM bans" + condition;
+
+        Timestamp time = new Timestamp((modifiedSince < 0) ?
+                System.currentTimeMillis() : modifiedSince);
+
+        try (ConnectionRef connection = ConnectionRef.ref()) {
+            try (PreparedStatement stmt = connection.prepareStatement(blacklistQuery)) {
+                stmt.setTimestamp(1, time);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lists.addAddress(rs.getInt("id"), rs.getString("remote_address"),
+                                rs.getTimestamp("expire").getTime());
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = connection.prepareStatement(bansQuery)) {
+                stmt.setTimestamp(1, time);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lists.addUser(rs.getInt("id"), rs.getInt("user_id"),
+                                rs.getTimestamp("expire").getTime());
+                    }
+                }
+            }
+
+            return true;
+        } catch (SQLException e) {
+            Output.println("Exception when loading bans: " + e.getMessage(), Level.DEBUG);
+            return false;
+        }
+    }
+
     public static boolean isRemoteAddressBanned(InetSocketAddress address) {
+        BanLists lists = banLists;
+
+        return (lists != null) ? lists.isAddressBanned(address.getAddress()) :
+                queryRemoteAddressBanned(address);
+    }
+
+    public static boolean isUserBanned(int userId) {
+        BanLists lists = banLists;
+
+        return (lists != null) ? lists.isUserBanned(userId) : queryUserBanned(userId);
+    }
+
+    private static boolean queryRemoteAddressBanned(InetSocketAddress address) {
         final String query = "SELECT id FROM blacklist WHERE remote_address = ? AND expire > ? LIMIT 1";
 
         try (ConnectionRef connection = ConnectionRef.ref();
@@ -26,7 +167,7 @@ public class Moderation {
         }
     }
 
-    public static boolean isUserBanned(int userId) {
+    private static boolean queryUserBanned(int userId) {
         final String query = "SELECT id FROM bans WHERE user_id = ? AND expire > ? LIMIT 1";
 
         try (ConnectionRef connection = ConnectionRef.ref();
@@ -42,4 +183,88 @@ public class Moderation {
             return true;
         }
     }
+
+    public static void shutdown() {
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdown();
+        }
+    }
+
+    private static class BanLists {
+
+        private final AddressTrie ipv4 = new AddressTrie(4);
+        private final AddressTrie ipv6 = new AddressTrie(16);
+        /** Latest expiration of the bans of each user. */
+        private final Map<Integer, Long> users = new ConcurrentHashMap<>();
+
+        /** Expiration of each ban row by user. Only accessed while holding the lists lock. */
+        private final Map<Integer, Map<Integer, Long>> userBans = new HashMap<>();
+        private final Map<Integer, Integer> banOwners = new HashMap<>();
+
+        /**
+         * Adds or replaces the row of an address or a range in CIDR notation,
+         * like 192.168.0.0/16.
+         */
+        private void addAddress(int rowId, String remoteAddress, long expiration) {
+            String[] parts = remoteAddress.trim().split("/", 2);
+
+            try {
+                // Only literal addresses are accepted, so no name lookup is made
+                if (!parts[0].matches("[0-9a-fA-F:.]+")) {
+                    throw new UnknownHostException(parts[0]);
+                }
+
+                InetAddress address = InetAddress.getByName(parts[0]);
+                byte[] bytes = address.getAddress();
+                int prefixLength = (parts.length > 1) ?
+                        Integer.parseInt(parts[1]) : bytes.length * 8;
+
+                // The row may have been stored in the other trie before being modified
+                ((trieOf(address) == ipv4) ? ipv6 : ipv4).remove(rowId);
+                trieOf(address).put(rowId, bytes, prefixLength, expiration);
+            } catch (UnknownHostException | NumberFormatException e) {
+                ipv4.remove(rowId);
+                ipv6.remove(rowId);
+                Output.println("Invalid blacklisted address: " + remoteAddress, Level.WARNING);
+            }
+        }
+
+        /** Adds or replaces the row of a user ban. */
+        private synchronized void addUser(int rowId, int userId, long expiration) {
+            Integer previousOwner = banOwners.put(rowId, userId);
+
+            if ((previousOwner != null) && (previousOwner != userId)) {
+                Map<Integer, Long> previousBans = userBans.get(previousOwner);
+                previousBans.remove(rowId);
+                updateUser(previousOwner);
+            }
+
+            userBans.computeIfAbsent(userId, id -> new HashMap<>()).put(rowId, expiration);
+            updateUser(userId);
+        }
+
+        private void updateUser(int userId) {
+            Map<Integer, Long> bans = userBans.get(userId);
+
+            if ((bans == null) || bans.isEmpty()) {
+                userBans.remove(userId);
+                users.remove(userId);
+            } else {
+                users.put(userId, Collections.max(bans.values()));
+            }
+        }
+
+        private boolean isAddressBanned(InetAddress address) {
+            return trieOf(address).find(address.getAddress()) > System.currentTimeMillis();
+        }
+
+        private boolean isUserBanned(int userId) {
+            Long expiration = users.get(userId);
+            return (expiration != null) && (expiration > System.currentTimeMillis());
+        }
+
+        private AddressTrie trieOf(InetAddress address) {
+            return (address instanceof Inet4Address) ? ipv4 : ipv6;
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package com.neikeq.kicksemu.game.misc;
+
+import com.neikeq.kicksemu.game.sessions.Session;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Players of a room that can receive the UDP game packets relayed by the server.<br>
+ * Lookups are lock-free and return the UDP address cached by the target session,
+ * which is updated when its port changes.
+ */
+public class UdpRelayTable {
+
+    private final Map<Integer, Session> targets = new ConcurrentHashMap<>();
+
+    public void add(Session session) {
+        targets.put(session.getPlayerId(), session);
+    }
+
+    public void addAll(Map<Integer, Session> sessions) {
+        targets.putAll(sessions);
+    }
+
+    public void remove(int playerId) {
+        targets.remove(playerId);
+    }
+
+    /** @return the UDP address of the target, or null if it is not in the table */
+    public InetSocketAddress getAddress(int playerId) {
+        Session target = targets.get(playerId);
+        return (target != null) ? target.getUdpAddress() : null;
+    }
+}
@@ -2,35 +2,37 @@ package com.neikeq.kicksemu.game.misc.friendship;
 
 import com.neikeq.kicksemu.game.characters.CharacterUtils;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
+import com.neikeq.kicksemu.utils.IntArraySet;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Friends of a player.<br>
+ * The list of a connected player is kept by its session and may be modified by
+ * the sessions of its friends, so every access is synchronized.
+ */
 public class FriendsList {
 
-    private final List<Integer> friends = new ArrayList<>();
+    private final IntArraySet friends = new IntArraySet(30);
 
-    public void addFriend(int friendId) {
+    public synchronized void addFriend(int friendId) {
         friends.add(friendId);
     }
 
-    public void removeFriend(int friendId) {
-        int index = friends.indexOf(friendId);
-
-        if (index != -1) {
-            friends.remove(index);
-        }
+    public synchronized void removeFriend(int friendId) {
+        friends.remove(friendId);
     }
 
-    public boolean containsFriend(int friendId) {
+    public synchronized boolean containsFriend(int friendId) {
         return friends.contains(friendId);
     }
 
-    public int size() {
+    public synchronized int size() {
         return friends.size();
     }
 
-    public List<Integer> fromPage(byte page) {
+    public synchronized List<Integer> fromPage(byte page) {
         List<Integer> players = new ArrayList<>();
 
         int index = page * 10;
@@ -69,15 +71,8 @@ public class FriendsList {
     }
 
     @Override
-    public String toString() {
-        String strFriends = "";
-
-        for (int i = 0; i < friends.size(); i++) {
-            strFriends += (i > 0) ? "," : "";
-            strFriends += String.valueOf(friends.get(i));
-        }
-
-        return strFriends;
+    public synchronized String toString() {
+        return friends.toString();
     }
 
     private FriendsList() {}
@@ -66,10 +66,10 @@ public class FriendsManager {
         if (ServerManager.isPlayerConnected(targetId)) {
             // TODO Check if the target actually sent a friend request
             if (accepted) {
-                FriendsList friendsList = PlayerInfo.getFriendsList(playerId);
+                FriendsList friendsList = PlayerInfo.loadFriendsList(playerId);
 
                 if (friendsList.size() < FRIENDS_LIST_LIMIT) {
-                    FriendsList targetFriendList = PlayerInfo.getFriendsList(targetId);
+                    FriendsList targetFriendList = PlayerInfo.loadFriendsList(targetId);
 
                     if (targetFriendList.size() < FRIENDS_LIST_LIMIT) {
                         // Add target to the player friend list
@@ -110,7 +110,7 @@ public class FriendsManager {
 
         short result = 0;
 
-        FriendsList friendList = PlayerInfo.getFriendsList(playerId);
+        FriendsList friendList = PlayerInfo.loadFriendsList(playerId);
 
         if (friendList.containsFriend(friendId)) {
             // Remove friend from from player's friend list
@@ -118,7 +118,7 @@ public class FriendsManager {
             PlayerInfo.setFriendsList(friendList, playerId);
 
             // Remove player from friend's friend list
-            FriendsList targetFriendList = PlayerInfo.getFriendsList(friendId);
+            FriendsList targetFriendList = PlayerInfo.loadFriendsList(friendId);
             targetFriendList.removeFriend(playerId);
             PlayerInfo.setFriendsList(targetFriendList, friendId);
         } else {
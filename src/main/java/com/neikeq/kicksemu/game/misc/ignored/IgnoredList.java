@@ -2,31 +2,33 @@ package com.neikeq.kicksemu.game.misc.ignored;
 
 import com.neikeq.kicksemu.game.characters.CharacterUtils;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
+import com.neikeq.kicksemu.utils.IntArraySet;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Players ignored by a player.<br>
+ * The list of a connected player is kept by its session and checked for every chat
+ * message, so it is shared between threads and every access is synchronized.
+ */
 public class IgnoredList {
 
-    private final List<Integer> ignoredPlayers = new ArrayList<>();
+    private final IntArraySet ignoredPlayers = new IntArraySet(10);
 
-    public void addPlayer(int playerId) {
+    public synchronized void addPlayer(int playerId) {
         ignoredPlayers.add(playerId);
     }
 
-    public void removePlayer(int playerId) {
-        int index = ignoredPlayers.indexOf(playerId);
-
-        if (index != -1) {
-            ignoredPlayers.remove(index);
-        }
+    public synchronized void removePlayer(int playerId) {
+        ignoredPlayers.remove(playerId);
     }
 
-    public boolean containsPlayer(int playerId) {
+    public synchronized boolean containsPlayer(int playerId) {
         return ignoredPlayers.contains(playerId);
     }
 
-    public int size() {
+    public synchronized int size() {
         return ignoredPlayers.size();
     }
 
@@ -57,19 +59,13 @@ public class IgnoredList {
     }
 
     @Override
-    public String toString() {
-        String strPlayers = "";
-
-        for (int i = 0; i < ignoredPlayers.size(); i++) {
-            strPlayers += (i > 0) ? "," : "";
-            strPlayers += String.valueOf(ignoredPlayers.get(i));
-        }
-
-        return strPlayers;
+    public synchronized String toString() {
+        return ignoredPlayers.toString();
     }
 
-    public List<Integer> getIgnoredPlayers() {
-        return ignoredPlayers;
+    /** Returns a copy of the ignored players. */
+    public synchronized List<Integer> getIgnoredPlayers() {
+        return ignoredPlayers.stream().boxed().collect(Collectors.toList());
     }
 
     private IgnoredList() {}
@@ -1,5 +1,6 @@
 package com.neikeq.kicksemu.game.misc.tutorial;
 
+import com.neikeq.kicksemu.game.characters.CharacterCache;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.sessions.Session;
 import com.neikeq.kicksemu.game.users.UserInfo;
@@ -99,6 +100,12 @@ public class TutorialManager {
     }
 
     private static boolean giveReward(int characterId) {
+        if (CharacterCache.get(characterId)
+                .filter(r -> r.sumInt("points", REWARD_POINTS)).isPresent()) {
+            CharacterCache.flush(characterId);
+            return true;
+        }
+
         final String query = "UPDATE characters SET points = points + ? WHERE id = ?";
 
         try (ConnectionRef con = ConnectionRef.ref();
@@ -41,10 +41,13 @@ public class ChallengeRoom extends Room implements Observer {
         synchronized (locker) {
             getPlayers().putAll(challenge.getRedTeam().getPlayers());
             getPlayers().putAll(challenge.getBlueTeam().getPlayers());
+            getRelayTable().addAll(getPlayers());
             getRedTeam().addAll(challenge.getRedTeam().getRedTeam());
             getBlueTeam().addAll(challenge.getBlueTeam().getRedTeam());
             getPlayers().keySet().forEach(playerId -> getRoomLobby().addPlayer(playerId));
             getPlayers().values().forEach(this::onPlayerJoined);
+
+            onListingChanged();
         }
     }
 
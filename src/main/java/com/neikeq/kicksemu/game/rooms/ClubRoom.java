@@ -1,7 +1,6 @@
 package com.neikeq.kicksemu.game.rooms;
 
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
-import com.neikeq.kicksemu.game.clubs.MemberInfo;
 import com.neikeq.kicksemu.game.lobby.RoomLobby;
 import com.neikeq.kicksemu.game.rooms.challenges.Challenge;
 import com.neikeq.kicksemu.game.rooms.challenges.ChallengeOrganizer;
@@ -57,11 +56,11 @@ public class ClubRoom extends Room {
         synchronized (locker) {
             if (isNotFull()) {
                 if (isWaiting() && !TeamManager.isRegistered(getId())) {
-                    if (MemberInfo.getClubId(playerId) == getId()) {
+                    if (session.getClubId() == getId()) {
                         // Check password (moderators can bypass this)
                         if ((getAccessType() != RoomAccessType.PASSWORD) ||
                                 password.equals(getPassword()) ||
-                                PlayerInfo.isModerator(playerId)) {
+                                session.isModerator()) {
                             short level = PlayerInfo.getLevel(playerId);
 
                             // If player level is allowed in room settings
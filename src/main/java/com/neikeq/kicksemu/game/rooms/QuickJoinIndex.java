@@ -0,0 +1,110 @@
+package com.neikeq.kicksemu.game.rooms;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of the rooms that can be quick joined.<br>
+ * Rooms are bucketed by level bands and ordered by occupancy, so the fullest room
+ * for a level is found without sorting. The index is updated by the rooms themselves
+ * every time their state, size or settings change.
+ */
+class QuickJoinIndex {
+
+    private static final int LEVEL_BAND = 10;
+    private static final int BANDS = (Byte.MAX_VALUE / LEVEL_BAND) + 1;
+
+    /** For each level band, the joinable rooms sorted by occupancy (fullest first). */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ConcurrentNavigableMap<Long, Room>[] bands =
+            new ConcurrentNavigableMap[BANDS];
+
+    /** Current entry of each indexed room. */
+    private static final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < BANDS; i++) {
+            bands[i] = new ConcurrentSkipListMap<>();
+        }
+    }
+
+    /** Indexes the room if it can be quick joined and is registered, or removes it. */
+    static void update(Room room) {
+        // The room locker is always acquired before the entries lock
+        synchronized (room.locker) {
+            entries.compute(room.getId(), (id, oldEntry) -> {
+                boolean registered = RoomManager.getRoomById(id)
+                        .filter(r -> r == room).isPresent();
+
+                // A removed room must not remove the entry of a new room with its id
+                if (!registered && (oldEntry != null) && (oldEntry.room != room)) {
+                    return oldEntry;
+                }
+
+                if (oldEntry != null) {
+                    oldEntry.remove();
+                }
+
+                if (!registered || !room.canQuickJoin()) {
+                    return null;
+                }
+
+                Entry entry = new Entry(room);
+                entry.add();
+                return entry;
+            });
+        }
+    }
+
+    /** Returns the fullest joinable room whose level requirements allow this level. */
+    static Optional<Room> find(short level) {
+        if ((level < 0) || (level > Byte.MAX_VALUE)) {
+            return Optional.empty();
+        }
+
+        // Only rooms whose level range partially covers the band can be skipped
+        return bands[level / LEVEL_BAND].values().stream()
+                .filter(room -> room.isLevelAllowed(level))
+                .findFirst();
+    }
+
+    private static int bandOf(byte level) {
+        return Math.max(0, Math.min(level, Byte.MAX_VALUE)) / LEVEL_BAND;
+    }
+
+    private static class Entry {
+
+        private final Room room;
+        private final long key;
+        private final int firstBand;
+        private final int lastBand;
+
+        private Entry(Room room) {
+            this.room = room;
+            // Fewer free slots first, then by id
+            key = ((long) (Byte.MAX_VALUE - room.getCurrentSize()) << 32) |
+                    (room.getId() & 0xFFFFFFFFL);
+            firstBand = bandOf(room.getMinLevel());
+            lastBand = bandOf(room.getMaxLevel());
+        }
+
+        private void add() {
+            for (int band = firstBand; band <= lastBand; band++) {
+                bands[band].put(key, room);
+            }
+        }
+
+        private void remove() {
+            for (int band = firstBand; band <= lastBand; band++) {
+                bands[band].remove(key);
+            }
+        }
+    }
+
+    private QuickJoinIndex() {
+        throw new AssertionError();
+    }
+}
@@ -5,6 +5,7 @@ import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.chat.MessageType;
 import com.neikeq.kicksemu.game.lobby.LobbyManager;
 import com.neikeq.kicksemu.game.lobby.RoomLobby;
+import com.neikeq.kicksemu.game.misc.UdpRelayTable;
 import com.neikeq.kicksemu.game.rooms.enums.RoomAccessType;
 import com.neikeq.kicksemu.game.rooms.enums.RoomBall;
 import com.neikeq.kicksemu.game.rooms.enums.RoomLeaveReason;
@@ -14,6 +15,7 @@ import com.neikeq.kicksemu.game.rooms.enums.RoomSize;
 import com.neikeq.kicksemu.game.rooms.enums.RoomState;
 import com.neikeq.kicksemu.game.rooms.enums.RoomTeam;
 import com.neikeq.kicksemu.game.sessions.Session;
+import com.neikeq.kicksemu.game.sessions.SessionBroadcaster;
 import com.neikeq.kicksemu.game.table.MissionInfo;
 import com.neikeq.kicksemu.game.table.TableManager;
 import com.neikeq.kicksemu.io.Output;
@@ -22,7 +24,6 @@ import com.neikeq.kicksemu.network.packets.out.MessageBuilder;
 import com.neikeq.kicksemu.network.packets.out.ServerMessage;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import com.neikeq.kicksemu.utils.DateUtils;
-import com.neikeq.kicksemu.utils.ThreadUtils;
 import io.netty.util.concurrent.ScheduledFuture;
 
 import java.sql.SQLException;
@@ -35,6 +36,7 @@ import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Room {
 
@@ -68,6 +70,7 @@ public class Room {
     private final SwapLocker swapLocker = new SwapLocker();
 
     private final Map<Integer, Session> players = new LinkedHashMap<>();
+    private final UdpRelayTable relayTable = new UdpRelayTable();
 
     private final List<Integer> confirmedPlayers = new ArrayList<>();
     private final List<Integer> disconnectedPlayers = new ArrayList<>();
@@ -84,6 +87,12 @@ public class Room {
 
     final Object locker = new Object();
 
+    /** Updates the indexes and caches that depend on the information shown in the room list. */
+    void onListingChanged() {
+        QuickJoinIndex.update(this);
+        RoomListCache.invalidate();
+    }
+
     void removeRoom() {
         synchronized (locker) {
             RoomManager.removeRoom(getId());
@@ -101,7 +110,7 @@ public class Room {
                     // Check password (moderators can bypass this)
                     if ((getAccessType() != RoomAccessType.PASSWORD) ||
                             password.equals(getPassword()) ||
-                            PlayerInfo.isModerator(playerId)) {
+                            session.isModerator()) {
                         short level = PlayerInfo.getLevel(playerId);
 
                         // If player level is allowed in room settings
@@ -141,6 +150,8 @@ public class Room {
             // Add player to players list and room lobby
             getPlayers().put(playerId, session);
             getRoomLobby().addPlayer(playerId);
+            getRelayTable().add(session);
+            session.setRelayTable(getRelayTable());
 
             // Add player to the correct team
             addPlayerToTeam(playerId);
@@ -155,6 +166,8 @@ public class Room {
             session.setRoomId(getId());
             session.send(joinRoomMessage(this, session.getPlayerId(), (short) 0));
             onPlayerJoined(session);
+
+            onListingChanged();
         }
     }
     
@@ -165,6 +178,7 @@ public class Room {
             // Remove player from players list and room lobby
             getPlayers().remove(playerId);
             getRoomLobby().removePlayer(playerId);
+            getRelayTable().remove(playerId);
 
             // Remove player from his team list
             removePlayerFromTeam(playerId);
@@ -172,6 +186,8 @@ public class Room {
             // Remove player from observers (if he is in)
             observers.remove(Integer.valueOf(playerId));
 
+            onListingChanged();
+
             // If room is empty, remove it
             if (getPlayers().size() < 1) {
                 removeRoom();
@@ -240,6 +256,7 @@ public class Room {
 
         short position = getPlayer(playerId).getCache().getPosition();
         getRedTeamPositions().add(position);
+        RoomListCache.invalidate();
     }
 
     void addPlayerToBlueTeam(int playerId) {
@@ -247,6 +264,7 @@ public class Room {
 
         short position = getPlayer(playerId).getCache().getPosition();
         getBlueTeamPositions().add(position);
+        RoomListCache.invalidate();
     }
 
     private void removePlayerFromTeam(int playerId) {
@@ -275,6 +293,7 @@ public class Room {
         if (index >= 0) {
             getRedTeam().remove(index);
             getRedTeamPositions().remove(index);
+            RoomListCache.invalidate();
         }
     }
 
@@ -284,6 +303,7 @@ public class Room {
         if (index >= 0) {
             getBlueTeam().remove(index);
             getBlueTeamPositions().remove(index);
+            RoomListCache.invalidate();
         }
     }
 
@@ -296,38 +316,56 @@ public class Room {
                 final long minDelay = 1000;
 
                 if (delay < minDelay) {
-                    ThreadUtils.sleep(minDelay - delay);
+                    // Players may join or leave meanwhile, so every check is done again
+                    schedule(() -> {
+                        synchronized (locker) {
+                            if (isWaiting() && isRegistered()) {
+                                startCountdown();
+                            }
+                        }
+                    }, minDelay - delay, TimeUnit.MILLISECONDS);
+                    return;
                 }
             }
 
+            onCountdownStarted();
+        }
+    }
+
+    /** Returns false once the room was removed, even if another room took its id. */
+    private boolean isRegistered() {
+        return RoomManager.getRoomById(getId()).filter(room -> room == this).isPresent();
+    }
+
+    private void onCountdownStarted() {
+        synchronized (locker) {
             setState(RoomState.COUNT_DOWN);
             getConfirmedPlayers().clear();
 
             broadcast(MessageBuilder.startCountDown((byte) -1));
 
-            countdownTimeoutFuture = getPlayer(host).getChannel().eventLoop()
-                    .schedule(() -> {
-                        synchronized (locker) {
-                            if (state() == RoomState.COUNT_DOWN) {
-                                List<Integer> failedPlayers = new ArrayList<>(players.keySet());
-                                confirmedPlayers.forEach(failedPlayers::remove);
-
-                                if (!failedPlayers.isEmpty()) {
-                                    List<String> info = failedPlayers.stream()
-                                            .map(player ->
-                                                    getPlayer(player).getCache().getName())
-                                            .collect(Collectors.toList());
-
-                                    broadcast(MessageBuilder.hostInfo(this));
-                                    broadcast(MessageBuilder.chatMessage(
-                                            MessageType.SERVER_MESSAGE,
-                                            "Failed to connect: " + String.join(", ", info)));
-                                }
-
-                                cancelCountdown();
-                            }
+            countdownTimeoutFuture = schedule(() -> {
+                synchronized (locker) {
+                    if (state() == RoomState.COUNT_DOWN) {
+                        List<Integer> failedPlayers = new ArrayList<>(players.keySet());
+                        confirmedPlayers.forEach(failedPlayers::remove);
+
+                        if (!failedPlayers.isEmpty()) {
+                            List<String> info = failedPlayers.stream()
+                                    .map(player ->
+                                            getPlayer(player).getCache().getName())
+                                    .collect(Collectors.toList());
+
+                            broadcast(MessageBuilder.hostInfo(this));
+                            broadcast(MessageBuilder.chatMessage(
+                                    MessageType.SERVER_MESSAGE,
+                                    "Failed to connect: " + String.join(", ", info)));
                         }
-                    }, 5, TimeUnit.SECONDS);
+
+                        cancelCountdown();
+                    }
+                }
+            }, 5, TimeUnit.SECONDS);
         }
     }
 
@@ -360,12 +398,11 @@ public class Room {
             setState(RoomState.LOADING);
             updateTrainingFactor();
 
-            loadingTimeoutFuture = getPlayer(host).getChannel().eventLoop()
-                    .schedule(() -> {
-                        synchronized (locker) {
-                            cancelLoading();
-                        }
-                    }, 30, TimeUnit.SECONDS);
+            loadingTimeoutFuture = schedule(() -> {
+                synchronized (locker) {
+                    cancelLoading();
+                }
+            }, 30, TimeUnit.SECONDS);
         }
     }
 
@@ -437,11 +474,15 @@ public class Room {
                 cancelLoading();
                 break;
             case RESULT:
-                ThreadUtils.sleep(3000);
-
-                setState(RoomState.WAITING);
-                broadcast(MessageBuilder.unknown1());
-                broadcast(MessageBuilder.toRoomLobby());
+                schedule(() -> {
+                    synchronized (locker) {
+                        if (state() == RoomState.RESULT) {
+                            setState(RoomState.WAITING);
+                            broadcast(MessageBuilder.unknown1());
+                            broadcast(MessageBuilder.toRoomLobby());
+                        }
+                    }
+                }, 3, TimeUnit.SECONDS);
                 break;
             default:
         }
@@ -534,32 +575,25 @@ public class Room {
         }
     }
 
+    /** Schedules a task in the event loop of the room host instead of blocking the caller. */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return getPlayer(host).getChannel().eventLoop().schedule(task, delay, unit);
+    }
+
     public void broadcast(ServerMessage msg) {
-        try {
-            getPlayers().values().forEach(currentSession ->
-                    currentSession.sendAndFlush(msg.retain()));
-        } finally {
-            msg.release();
-        }
+        SessionBroadcaster.broadcast(msg, getPlayers().values().stream());
     }
 
     public void broadcast(ServerMessage msg, Predicate<? super Session> filter) {
-        try {
-            getPlayers().values().stream().filter(filter).forEach(currentSession ->
-                currentSession.sendAndFlush(msg.retain()));
-        } finally {
-            msg.release();
-        }
+        SessionBroadcaster.broadcast(msg, getPlayers().values().stream().filter(filter));
     }
 
     public void broadcastToTeam(ServerMessage msg, Optional<RoomTeam> maybeTeam, int sender) {
-        try {
-            getTeamPlayers(maybeTeam).ifPresent(teamPlayers -> teamPlayers.stream()
-                    .filter(id -> !PlayerInfo.getIgnoredList(id).containsPlayer(sender))
-                    .forEach(playerId -> getPlayer(playerId).sendAndFlush(msg.retain())));
-        } finally {
-            msg.release();
-        }
+        SessionBroadcaster.broadcast(msg, getTeamPlayers(maybeTeam)
+                .map(teamPlayers -> teamPlayers.stream()
+                        .filter(id -> !PlayerInfo.getIgnoredList(id).containsPlayer(sender))
+                        .map(this::getPlayer))
+                .orElseGet(Stream::empty));
     }
 
     public boolean canQuickJoin() {
@@ -677,6 +711,7 @@ public class Room {
 
     public void setAccessType(RoomAccessType accessType) {
         this.accessType = accessType;
+        onListingChanged();
     }
 
     public RoomMode getRoomMode() {
@@ -693,6 +728,7 @@ public class Room {
 
     public void setMinLevel(byte minLevel) {
         this.minLevel = minLevel;
+        onListingChanged();
     }
 
     public byte getMaxLevel() {
@@ -701,6 +737,7 @@ public class Room {
 
     public void setMaxLevel(byte maxLevel) {
         this.maxLevel = maxLevel;
+        onListingChanged();
     }
 
     public RoomSize getMaxSize() {
@@ -709,6 +746,7 @@ public class Room {
 
     public void setMaxSize(RoomSize maxSize) {
         this.maxSize = maxSize;
+        onListingChanged();
     }
 
     public byte getCurrentSize() {
@@ -738,12 +776,17 @@ public class Room {
 
     public void setName(String name) {
         this.name = name;
+        RoomListCache.invalidate();
     }
 
     public Map<Integer, Session> getPlayers() {
         return players;
     }
 
+    public UdpRelayTable getRelayTable() {
+        return relayTable;
+    }
+
     public Session getPlayer(int playerId) {
         return getPlayers().get(playerId);
     }
@@ -809,6 +852,8 @@ public class Room {
             RoomState oldState = this.state;
             this.state = state;
             onStateChanged(oldState);
+
+            onListingChanged();
         }
     }
 
@@ -856,7 +901,7 @@ public class Room {
 
     public Optional<MissionInfo> getMatchMissionInfo() {
         return hasMatchMission() ?
-                TableManager.getMissionInfo(m -> m.getId() == getMatchMission()) :
+                TableManager.getMissionInfo(getMatchMission()) :
                 Optional.empty();
     }
 
@@ -0,0 +1,72 @@
+package com.neikeq.kicksemu.game.rooms;
+
+import com.neikeq.kicksemu.network.packets.out.MessageBuilder;
+import com.neikeq.kicksemu.network.packets.out.ServerMessage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Encoded pages of the room list, shared by every player requesting the same page.<br>
+ * All the pages are invalidated when a room is added, removed or changes
+ * any of the information shown in the list.
+ */
+public class RoomListCache {
+
+    public static final RoomListCache ROOM_LIST = new RoomListCache(page ->
+            MessageBuilder.roomList(RoomManager.getRoomsFromPage(page), page));
+    public static final RoomListCache CLUB_ROOM_LIST = new RoomListCache(page ->
+            MessageBuilder.clubRoomList(RoomManager.getRoomsFromPage(page), page));
+
+    private static final AtomicInteger version = new AtomicInteger();
+
+    private final Map<Short, Page> pages = new ConcurrentHashMap<>();
+    private final Function<Short, ServerMessage> encoder;
+
+    static void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the encoded page, encoding it again if the rooms changed since the last time.
+     * The caller owns a reference to the returned message.
+     */
+    public ServerMessage getPage(short page) {
+        ServerMessage[] result = new ServerMessage[1];
+
+        pages.compute(page, (p, cached) -> {
+            // Read before encoding so changes made meanwhile invalidate the new page
+            int currentVersion = version.get();
+
+            if ((cached == null) || (cached.version != currentVersion)) {
+                if (cached != null) {
+                    cached.message.release();
+                }
+
+                cached = new Page(currentVersion, encoder.apply(p));
+            }
+
+            result[0] = cached.message.retain();
+            return cached;
+        });
+
+        return result[0];
+    }
+
+    private RoomListCache(Function<Short, ServerMessage> encoder) {
+        this.encoder = encoder;
+    }
+
+    private static class Page {
+
+        private final int version;
+        private final ServerMessage message;
+
+        private Page(int version, ServerMessage message) {
+            this.version = version;
+            this.message = message;
+        }
+    }
+}
@@ -2,74 +2,104 @@ package com.neikeq.kicksemu.game.rooms;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RoomManager {
 
-    public static final Object ROOMS_LOCKER = new Object();
-
-    private static final Map<Integer, Room> ROOMS = new HashMap<>();
+    private static final Map<Integer, Room> ROOMS = new ConcurrentSkipListMap<>();
     private static final int ROOMS_PER_PAGE = 5;
 
-    private static short pagesCount;
+    private static final AtomicInteger roomsCount = new AtomicInteger();
 
-    public static Optional<Room> getRoomById(Integer id) {
-        synchronized (ROOMS_LOCKER) {
-            if (id <= 0) {
-                return Optional.empty();
-            }
+    /** Ids released by removed rooms, reused before allocating new ones. */
+    private static final ConcurrentSkipListSet<Integer> freeIds = new ConcurrentSkipListSet<>();
+    private static final AtomicInteger nextId = new AtomicInteger(1);
 
-            return Optional.ofNullable(ROOMS.get(id));
+    /** Incremented every time a room is added or removed. */
+    private static final AtomicInteger version = new AtomicInteger();
+    private static volatile RoomsSnapshot snapshot = new RoomsSnapshot(-1, Collections.emptyList());
+
+    public static Optional<Room> getRoomById(Integer id) {
+        if (id <= 0) {
+            return Optional.empty();
         }
+
+        return Optional.ofNullable(ROOMS.get(id));
     }
 
-    public static void addRoom(Room room) {
-        synchronized (ROOMS_LOCKER) {
-            if (!ROOMS.containsKey(room.getId())) {
-                ROOMS.put(room.getId(), room);
-                updatePagesCount();
-            }
+    /**
+     * Adds the room if there is not another room with the same id.
+     * @return true if the room was added
+     */
+    public static boolean addRoom(Room room) {
+        if (ROOMS.putIfAbsent(room.getId(), room) == null) {
+            roomsCount.incrementAndGet();
+            version.incrementAndGet();
+            room.onListingChanged();
+            return true;
         }
+
+        return false;
     }
 
     public static void removeRoom(Integer id) {
-        synchronized (ROOMS_LOCKER) {
-            ROOMS.remove(id);
-            updatePagesCount();
+        Room room = ROOMS.remove(id);
+
+        if (room != null) {
+            roomsCount.decrementAndGet();
+            version.incrementAndGet();
+            room.onListingChanged();
+
+            if (id < nextId.get()) {
+                freeIds.add(id);
+            }
         }
     }
 
     public static int roomsCount() {
-        synchronized (ROOMS_LOCKER) {
-            return ROOMS.size();
-        }
+        return roomsCount.get();
     }
 
-    private static void updatePagesCount() {
-        pagesCount = (short) Math.ceil((double) roomsCount() / (double) ROOMS_PER_PAGE);
+    /**
+     * Returns an id for a new room, reusing the smallest id released by a removed room.<br>
+     * The id is reserved until a room with that id is removed.
+     */
+    public static int nextRoomId() {
+        Integer id;
+
+        while ((id = freeIds.pollFirst()) != null) {
+            if (!ROOMS.containsKey(id)) {
+                return id;
+            }
+        }
+
+        do {
+            id = nextId.getAndIncrement();
+        } while (ROOMS.containsKey(id));
+
+        return id;
     }
 
     /**
-     * Returns the smallest missing key in rooms map.<br>
-     * Required to get an id for new rooms.
+     * Returns the rooms ordered by id.<br>
+     * The list is immutable and is not modified when rooms are added or removed.
      */
-    public static int getSmallestMissingIndex() {
-        synchronized (ROOMS_LOCKER) {
-            int i;
-
-            for (i = 1; i <= ROOMS.size(); i++) {
-                if (!ROOMS.containsKey(i)) {
-                    return i;
-                }
-            }
+    public static List<Room> getRooms() {
+        RoomsSnapshot current = snapshot;
+        int currentVersion = version.get();
 
-            return i;
+        if (current.version != currentVersion) {
+            current = new RoomsSnapshot(currentVersion, new ArrayList<>(ROOMS.values()));
+            snapshot = current;
         }
+
+        return current.rooms;
     }
 
     /**
@@ -79,17 +109,38 @@ public class RoomManager {
      * containing the rooms from the specified page
      */
     public static Map<Integer, Room> getRoomsFromPage(int page) {
-        Set<Integer> indexes = ROOMS.keySet();
-        final Map<Integer, Room> pageRooms = new HashMap<>();
+        List<Room> rooms = getRooms();
+        final Map<Integer, Room> pageRooms = new LinkedHashMap<>();
 
         int startIndex = page * ROOMS_PER_PAGE;
 
-        indexes.stream().filter(id -> id >= startIndex).limit(ROOMS_PER_PAGE)
-                .forEach(id -> pageRooms.put(id, ROOMS.get(id)));
+        for (int i = firstRoomWithId(rooms, startIndex);
+             (i < rooms.size()) && (pageRooms.size() < ROOMS_PER_PAGE); i++) {
+            Room room = rooms.get(i);
+            pageRooms.put(room.getId(), room);
+        }
 
         return pageRooms;
     }
 
+    /** Index of the first room whose id is greater than or equal to the specified id. */
+    private static int firstRoomWithId(List<Room> rooms, int id) {
+        int low = 0;
+        int high = rooms.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (rooms.get(middle).getId() < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
     /**
      * Return a waiting room (without password) whose level requirements
      * allow this player level, or null if no room is found.
@@ -98,17 +149,21 @@ public class RoomManager {
      * @return the waiting room or null if no room was found for this player
      */
     public static Optional<Room> getQuickRoom(short level) {
-        List<Room> freeRooms = ROOMS.values().stream()
-                .filter(r -> r.canQuickJoin() && r.isLevelAllowed(level))
-                .collect(Collectors.toCollection(ArrayList::new));
-
-        Collections.sort(freeRooms, (r1, r2) ->
-                Byte.compare(r2.getCurrentSize(), r1.getCurrentSize()));
-
-        return !freeRooms.isEmpty() ? Optional.of(freeRooms.get(0)) : Optional.empty();
+        return QuickJoinIndex.find(level);
     }
 
     public static short getPagesCount() {
-        return pagesCount;
+        return (short) Math.ceil((double) roomsCount() / (double) ROOMS_PER_PAGE);
+    }
+
+    private static class RoomsSnapshot {
+
+        private final int version;
+        private final List<Room> rooms;
+
+        private RoomsSnapshot(int version, List<Room> rooms) {
+            this.version = version;
+            this.rooms = Collections.unmodifiableList(rooms);
+        }
     }
 }
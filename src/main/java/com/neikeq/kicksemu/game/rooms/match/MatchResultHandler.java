@@ -14,11 +14,15 @@ import com.neikeq.kicksemu.network.packets.out.ServerMessage;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import com.neikeq.kicksemu.utils.DateUtils;
 import com.neikeq.kicksemu.game.events.GameEvents;
-import com.neikeq.kicksemu.utils.ThreadUtils;
 import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.apache.commons.lang3.mutable.MutableInt;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class MatchResultHandler {
 
@@ -39,11 +43,20 @@ public class MatchResultHandler {
         checkCountdownValidity();
         calculateAverageLevel();
         applyRewards();
-        
-        waitFixedDelayIfNeeded();
-        broadcastMatchResults();
-        broadcastResultToObserverPlayers();
-        doAfterResultUpdates();
+
+        // Messages are built and updates applied now, while the connection is open
+        Map<Session, ServerMessage> resultMessages = new LinkedHashMap<>();
+        buildMatchResults(resultMessages);
+        buildResultForObserverPlayers(resultMessages);
+        List<Session> expiredItemsPlayers = doAfterResultUpdates();
+
+        runAfterFixedDelayIfNeeded(() -> {
+            resultMessages.forEach(Session::sendAndFlush);
+            expiredItemsPlayers.forEach(session -> {
+                CharacterManager.sendItemList(session);
+                session.flush();
+            });
+        });
     }
 
     void applyRewards() {
@@ -55,40 +68,49 @@ public class MatchResultHandler {
 
     /**
      * This fixed delay is necessary to avoid golden goal bug.
-     * It gives client enough time to exit the repeat camera.
+     * It gives client enough time to exit the repeat camera.<br>
+     * The task is scheduled in the room event loop instead of blocking the handler.
      */
-    private void waitFixedDelayIfNeeded() {
+    private void runAfterFixedDelayIfNeeded(Runnable task) {
         // If the match was not finished manually, or was finished during golden goal
         if (getResult().getCountdown() <= 0) {
             final long delay = DateUtils.currentTimeMillis() - resultTime;
             final int minDelay = 1000;
 
             if (delay < minDelay) {
-                ThreadUtils.sleep(minDelay - delay);
+                getRoom().schedule(task, minDelay - delay, TimeUnit.MILLISECONDS);
+                return;
             }
         }
+
+        task.run();
     }
 
-    private void broadcastMatchResults() {
+    private void buildMatchResults(Map<Session, ServerMessage> resultMessages) {
         getResult().getPlayers().forEach(playerResult -> {
             ServerMessage resultMessage = MessageBuilder.matchResult(getResult(),
                     playerResult, getRoom(), getConnection());
-            getRoom().getPlayer(playerResult.getPlayerId()).sendAndFlush(resultMessage);
+            resultMessages.put(getRoom().getPlayer(playerResult.getPlayerId()), resultMessage);
         });
     }
 
-    private void broadcastResultToObserverPlayers() {
+    private void buildResultForObserverPlayers(Map<Session, ServerMessage> resultMessages) {
         if (!getRoom().getObservers().isEmpty()) {
             // Observer players do not count in stats, so we pass an empty PlayerResult instance
             ServerMessage observerMessage = MessageBuilder.matchResult(getResult(),
                     new PlayerResult(), getRoom(), getConnection());
 
             getRoom().getObservers().stream().forEach(o ->
-                    getRoom().getPlayer(o).sendAndFlush(observerMessage));
+                    resultMessages.put(getRoom().getPlayer(o), observerMessage.retain()));
+
+            observerMessage.release();
         }
     }
 
-    private void doAfterResultUpdates() {
+    /** @return the players whose item list must be sent again because an item expired */
+    private List<Session> doAfterResultUpdates() {
+        List<Session> expiredItemsPlayers = new ArrayList<>();
+
         getResult().getPlayers().forEach(playerResult -> {
             int playerId = playerResult.getPlayerId();
             Session session = room.getPlayer(playerId);
@@ -116,11 +138,13 @@ public class MatchResultHandler {
                             });
 
                     if (mustNotifyExpiration.isTrue()) {
-                        CharacterManager.sendItemList(getRoom().getPlayer(playerId));
+                        expiredItemsPlayers.add(session);
                     }
                 }
             }
         });
+
+        return expiredItemsPlayers;
     }
 
     private void updatePlayerHistory(PlayerResult playerResult) {
@@ -2,11 +2,12 @@ package com.neikeq.kicksemu.game.rooms.messages;
 
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.chat.ChatUtils;
-import com.neikeq.kicksemu.game.clubs.MemberInfo;
+import com.neikeq.kicksemu.game.clubs.ClubRoster;
 import com.neikeq.kicksemu.game.lobby.LobbyManager;
 import com.neikeq.kicksemu.game.rooms.ChallengeRoom;
 import com.neikeq.kicksemu.game.rooms.ClubRoom;
 import com.neikeq.kicksemu.game.rooms.ClubRoomSettings;
+import com.neikeq.kicksemu.game.rooms.RoomListCache;
 import com.neikeq.kicksemu.game.rooms.RoomManager;
 import com.neikeq.kicksemu.game.rooms.TeamManager;
 import com.neikeq.kicksemu.game.rooms.challenges.Challenge;
@@ -30,7 +31,7 @@ public class ClubRoomMessages extends RoomMessages {
 
     public static void roomList(Session session, ClientMessage msg) {
         short page = (short) Math.min(msg.readShort(), RoomManager.getPagesCount());
-        session.send(MessageBuilder.clubRoomList(RoomManager.getRoomsFromPage(page), page));
+        session.send(RoomListCache.CLUB_ROOM_LIST.getPage(page));
     }
 
     public static void createRoom(Session session, ClientMessage msg) {
@@ -63,7 +64,8 @@ public class ClubRoomMessages extends RoomMessages {
                             return (short) -3; // Does not meet the level requirements
                         }
 
-                        int clubId = MemberInfo.getClubId(playerId);
+                        // Memberships may change while online, so refresh it from the database
+                        int clubId = ClubRoster.refresh(session);
 
                         if (clubId <= 0) {
                             return (short) -4; // Not a club member
@@ -73,7 +75,9 @@ public class ClubRoomMessages extends RoomMessages {
                             return (short) -5; // The club already has a team
                         }
 
-                        createRoom(session, clubId, settings);
+                        if (!createRoom(session, clubId, settings)) {
+                            return (short) -5; // Created by another member meanwhile
+                        }
 
                         return (short) 0;
                     }).orElse((short) -1);
@@ -82,19 +86,22 @@ public class ClubRoomMessages extends RoomMessages {
         session.send(MessageBuilder.clubCreateRoom((short) 0, result));
     }
 
-    private static void createRoom(Session session, int clubId, ClubRoomSettings settings) {
+    private static boolean createRoom(Session session, int clubId, ClubRoomSettings settings) {
         ClubRoom room = new ClubRoom();
 
         room.setSettings(settings);
 
-        synchronized (RoomManager.ROOMS_LOCKER) {
-            // Get the room id
-            room.setId(clubId);
-            // Add it to the rooms list
-            RoomManager.addRoom(room);
-            // Add the player to the room
-            room.addPlayer(session);
+        // Get the room id
+        room.setId(clubId);
+
+        // Add it to the rooms list unless another member created it first
+        if (!RoomManager.addRoom(room)) {
+            return false;
         }
+
+        // Add the player to the room
+        room.addPlayer(session);
+        return true;
     }
 
     public static void joinRoom(Session session, ClientMessage msg) {
@@ -120,8 +127,7 @@ public class ClubRoomMessages extends RoomMessages {
             return;
         }
 
-        int playerId = session.getPlayerId();
-        short result = RoomManager.getRoomById(MemberInfo.getClubId(playerId))
+        short result = RoomManager.getRoomById(session.getClubId())
                 .map(room -> room.tryJoinRoom(session, ""))
                 .orElse((short) -2);
 
@@ -205,13 +211,13 @@ public class ClubRoomMessages extends RoomMessages {
 
             if (room.isNotFull()) {
                 // If the player to invite is in the main lobby
-                result = !LobbyManager.getMainLobby().getPlayers().contains(playerToInvite) ?
+                result = !LobbyManager.getMainLobby().isPlayerIn(playerToInvite) ?
                         -2 :
                         ServerManager.getSession(playerToInvite).map(sessionToInvite -> {
                             short directResult = 0;
 
                             if (UserInfo.getSettings(sessionToInvite.getUserId()).getInvites()) {
-                                int targetClubId = MemberInfo.getClubId(playerToInvite);
+                                int targetClubId = sessionToInvite.getClubId();
 
                                 // If the target player is a member of the club
                                 if (targetClubId == room.getId()) {
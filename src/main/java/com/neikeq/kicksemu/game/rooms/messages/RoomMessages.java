@@ -4,6 +4,7 @@ import com.neikeq.kicksemu.config.Configuration;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.lobby.LobbyManager;
 import com.neikeq.kicksemu.game.rooms.Room;
+import com.neikeq.kicksemu.game.rooms.RoomListCache;
 import com.neikeq.kicksemu.game.rooms.RoomManager;
 import com.neikeq.kicksemu.game.rooms.RoomSettings;
 import com.neikeq.kicksemu.game.rooms.enums.RoomBall;
@@ -37,7 +38,7 @@ public class RoomMessages {
 
     public static void roomList(Session session, ClientMessage msg) {
         short page = (short) Math.min(msg.readShort(), RoomManager.getPagesCount());
-        session.send(MessageBuilder.roomList(RoomManager.getRoomsFromPage(page), page));
+        session.send(RoomListCache.ROOM_LIST.getPage(page));
     }
 
     public static void createRoom(Session session, ClientMessage msg) {
@@ -93,14 +94,12 @@ public class RoomMessages {
 
         room.setSettings(settings);
 
-        synchronized (RoomManager.ROOMS_LOCKER) {
-            // Get the room id
-            room.setId(RoomManager.getSmallestMissingIndex());
-            // Add it to the rooms list
-            RoomManager.addRoom(room);
-            // Add the player to the room
-            room.addPlayer(session);
-        }
+        // Get the room id
+        room.setId(RoomManager.nextRoomId());
+        // Add the player to the room before it can be found by other players
+        room.addPlayer(session);
+        // Add it to the rooms list
+        RoomManager.addRoom(room);
 
         // Notify the client to join the room
         session.send(MessageBuilder.joinRoom(Optional.of(room), session.getPlayerId(), (short) 0));
@@ -298,7 +297,7 @@ public class RoomMessages {
 
             if (room.isNotFull()) {
                 // If the player to invite is in the main lobby
-                result = !LobbyManager.getMainLobby().getPlayers().contains(playerToInvite) ?
+                result = !LobbyManager.getMainLobby().isPlayerIn(playerToInvite) ?
                         -2 :
                         ServerManager.getSession(playerToInvite).map(targetSession -> {
                             if (UserInfo.getSettings(targetSession.getUserId()).getInvites()) {
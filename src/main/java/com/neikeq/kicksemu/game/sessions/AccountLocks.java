@@ -0,0 +1,46 @@
+package com.neikeq.kicksemu.game.sessions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locks of the accounts being logged in.<br>
+ * Logins of different accounts run concurrently, while the logins of the same account
+ * run one after another. A lock is removed once no thread is using it.
+ */
+class AccountLocks {
+
+    private static final Map<Integer, AccountLock> locks = new ConcurrentHashMap<>();
+
+    static <E extends Exception> void run(int accountId, LockedTask<E> task) throws E {
+        AccountLock lock = locks.compute(accountId, (id, current) -> {
+            AccountLock result = (current != null) ? current : new AccountLock();
+            result.users++;
+            return result;
+        });
+
+        try {
+            synchronized (lock) {
+                task.run();
+            }
+        } finally {
+            locks.computeIfPresent(accountId, (id, current) ->
+                    (--current.users > 0) ? current : null);
+        }
+    }
+
+    private static class AccountLock {
+
+        /** Threads holding or waiting for the lock. Only modified inside compute. */
+        private int users;
+    }
+
+    @FunctionalInterface
+    interface LockedTask<E extends Exception> {
+        void run() throws E;
+    }
+
+    private AccountLocks() {
+        throw new AssertionError();
+    }
+}
@@ -1,11 +1,14 @@
 package com.neikeq.kicksemu.game.sessions;
 
 import com.neikeq.kicksemu.config.Constants;
+import com.neikeq.kicksemu.game.characters.CharacterCache;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.characters.CharacterUtils;
 import com.neikeq.kicksemu.game.clubs.ClubManager;
+import com.neikeq.kicksemu.game.clubs.ClubRoster;
 import com.neikeq.kicksemu.game.lobby.LobbyManager;
 import com.neikeq.kicksemu.game.misc.Moderation;
+import com.neikeq.kicksemu.game.sessions.LoginMetrics.LoginType;
 import com.neikeq.kicksemu.game.users.UserInfo;
 import com.neikeq.kicksemu.game.users.UserUtils;
 import com.neikeq.kicksemu.io.Output;
@@ -16,49 +19,63 @@ import com.neikeq.kicksemu.network.server.ServerManager;
 import com.neikeq.kicksemu.network.server.udp.UdpPing;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import com.neikeq.kicksemu.utils.DateUtils;
+import com.neikeq.kicksemu.utils.HashingExecutor;
 import com.neikeq.kicksemu.utils.Password;
 import com.neikeq.kicksemu.utils.ThreadUtils;
 
 import io.netty.util.concurrent.ScheduledFuture;
 
 import java.net.InetAddress;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
+import java.security.GeneralSecurityException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 public class Authenticator {
 
-    public static synchronized void certifyLogin(Session session, ClientMessage msg) {
+    public static void certifyLogin(Session session, ClientMessage msg) {
+        long startTime = System.nanoTime();
+        boolean success = false;
+
         String username = msg.readString(30).toLowerCase();
         char[] password = msg.readChars(20);
         int clientVersion = msg.readInt();
 
         try {
-            certifyAuthenticate(username, password, clientVersion);
+            int userId = certifyAuthenticate(username, password, clientVersion);
+
+            // Only the logins of the same account must be sequential
+            AccountLocks.run(userId, () -> {
+                certifyAccount(userId);
 
-            session.setAuthenticated(true);
-            session.setUserId(UserUtils.getIdFromUsername(username));
+                session.setAuthenticated(true);
+                session.setUserId(userId);
 
-            SessionManager.generateSession(session);
+                SessionManager.generateSession(session);
 
-            UserInfo.setServer(ServerManager.getServerId(), session.getUserId());
-            UserInfo.setOnline(0, session.getUserId());
+                UserInfo.setServer(ServerManager.getServerId(), session.getUserId());
+                UserInfo.setOnline(0, session.getUserId());
+            });
 
             session.send(MessageBuilder.certifyLogin(session.getSessionId(),
                     session.getUserId(), (short) 0));
+            success = true;
         } catch (AuthenticationException e) {
             session.sendAndFlush(MessageBuilder.certifyLogin(session.getSessionId(),
                     session.getUserId(), (short) e.getErrorCode()));
             session.close();
+        } finally {
+            LoginMetrics.onLoginFinished(LoginType.CERTIFY,
+                    System.nanoTime() - startTime, success);
         }
     }
 
-    private static void certifyAuthenticate(String username, char[] password,
-                                            int clientVersion) throws AuthenticationException {
+    /** @return the id of the account if the password is valid */
+    private static int certifyAuthenticate(String username, char[] password,
+                                           int clientVersion) throws AuthenticationException {
         if (clientVersion != Constants.REQUIRED_CLIENT_VERSION) {
             throw new AuthenticationException("Invalid client version.",
                     AuthenticationCode.CLIENT_VERSION);
@@ -66,66 +83,89 @@ public class Authenticator {
 
         final String query = "SELECT id, password FROM users WHERE username = ?";
 
+        int id;
+        String storedPassword;
+
         try (ConnectionRef con = ConnectionRef.ref();
              PreparedStatement stmt = con.prepareStatement(query)) {
             stmt.setString(1, username);
 
             try (ResultSet result = stmt.executeQuery()) {
-                if (result.next()) {
-                    if (!Password.validate(password, result.getString("password"))) {
-                        throw new AuthenticationException("Invalid password.",
-                                AuthenticationCode.INVALID_PASSWORD);
-                    }
-
-                    // Overwrite password with NOPs for security
-                    Arrays.fill(password, '\0');
-
-                    int id = result.getInt("id");
-
-                    if (Moderation.isUserBanned(id)) {
-                        throw new AuthenticationException("The account is blocked.",
-                                AuthenticationCode.ACCOUNT_BLOCKED);
-                    }
-
-                    if (UserUtils.isAlreadyConnected(id)) {
-                        throw new AuthenticationException("The account is already connected.",
-                                AuthenticationCode.ALREADY_CONNECTED);
-                    }
-                } else {
+                if (!result.next()) {
                     throw new AuthenticationException("The account does not exist",
                             AuthenticationCode.ACCOUNT_NOT_FOUND);
                 }
+
+                id = result.getInt("id");
+                storedPassword = result.getString("password");
             }
-        } catch (SQLException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+        } catch (SQLException e) {
             throw new AuthenticationException(e.getMessage(), AuthenticationCode.AUTH_FAILURE);
         }
+
+        try {
+            // The connection is released before hashing
+            if (!HashingExecutor.call(() -> Password.validate(password, storedPassword))) {
+                throw new AuthenticationException("Invalid password.",
+                        AuthenticationCode.INVALID_PASSWORD);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new AuthenticationException(e.getMessage(), AuthenticationCode.AUTH_FAILURE);
+        } finally {
+            // Overwrite password with NOPs for security
+            Arrays.fill(password, '\0');
+        }
+
+        return id;
+    }
+
+    private static void certifyAccount(int id) throws AuthenticationException {
+        if (Moderation.isUserBanned(id)) {
+            throw new AuthenticationException("The account is blocked.",
+                    AuthenticationCode.ACCOUNT_BLOCKED);
+        }
+
+        if (UserUtils.isAlreadyConnected(id)) {
+            throw new AuthenticationException("The account is already connected.",
+                    AuthenticationCode.ALREADY_CONNECTED);
+        }
     }
 
-    public static synchronized void instantLogin(Session session, ClientMessage msg) {
+    public static void instantLogin(Session session, ClientMessage msg) {
+        long startTime = System.nanoTime();
+        boolean success = false;
+
         int sessionId = msg.readInt();
 
-        int accountId = SessionInfo.getUserId(sessionId);
-        int characterId = SessionInfo.getPlayerId(sessionId);
+        Optional<SessionInfo.Entry> sessionInfo = SessionInfo.get(sessionId);
+        int accountId = sessionInfo.map(SessionInfo.Entry::getUserId).orElse(-1);
+        int characterId = sessionInfo.map(SessionInfo.Entry::getPlayerId).orElse(-1);
+        String hash = sessionInfo.map(SessionInfo.Entry::getHash).orElse(null);
 
         try {
-            instantAuthenticate(accountId, characterId,
-                    session.getRemoteAddress(), SessionInfo.getHash(sessionId));
+            AccountLocks.run(accountId, () -> {
+                instantAuthenticate(accountId, characterId, session.getRemoteAddress(), hash);
 
-            session.setAuthenticated(true);
-            session.setUserId(accountId);
-            session.setPlayerId(characterId);
-            session.setSessionId(sessionId);
-            SessionInfo.resetExpiration(sessionId);
+                session.setAuthenticated(true);
+                session.setUserId(accountId);
+                session.setPlayerId(characterId);
+                session.setSessionId(sessionId);
+                SessionInfo.resetExpiration(sessionId);
 
-            UserInfo.setServer(ServerManager.getServerId(), session.getUserId());
-            UserInfo.setOnline(0, session.getUserId());
+                UserInfo.setServer(ServerManager.getServerId(), session.getUserId());
+                UserInfo.setOnline(0, session.getUserId());
 
-            ServerManager.addPlayer(characterId, session);
+                ServerManager.addPlayer(characterId, session);
+            });
 
             session.send(MessageBuilder.instantLogin(sessionId, (short) 0));
+            success = true;
         } catch (AuthenticationException e) {
             session.send(MessageBuilder.instantLogin(sessionId, (short) e.getErrorCode()));
             session.close();
+        } finally {
+            LoginMetrics.onLoginFinished(LoginType.INSTANT,
+                    System.nanoTime() - startTime, success);
         }
     }
 
@@ -143,46 +183,54 @@ public class Authenticator {
                     throw new AuthenticationException("The account does not exist.",
                             AuthenticationCode.ACCOUNT_NOT_FOUND);
                 }
+            }
+        } catch (SQLException e) {
+            throw new AuthenticationException(e.getMessage(), AuthenticationCode.AUTH_FAILURE);
+        }
 
-                if (Moderation.isUserBanned(accountId)) {
-                    throw new AuthenticationException("The account is blocked.",
-                            AuthenticationCode.ACCOUNT_BLOCKED);
-                }
-                boolean connected = UserUtils.isAlreadyConnected(accountId);
-
-                // Give a bit of time and try again (3 attempts)
-                for (int i = 0; (i < 4) && connected; i++) {
-                    ThreadUtils.sleep(500);
-                    connected = UserUtils.isAlreadyConnected(accountId);
-                }
+        if (Moderation.isUserBanned(accountId)) {
+            throw new AuthenticationException("The account is blocked.",
+                    AuthenticationCode.ACCOUNT_BLOCKED);
+        }
+        boolean connected = UserUtils.isAlreadyConnected(accountId);
 
-                if (connected) {
-                    throw new AuthenticationException("The account is already connected.",
-                            AuthenticationCode.ALREADY_CONNECTED);
-                }
+        // Give a bit of time and try again (3 attempts)
+        for (int i = 0; (i < 4) && connected; i++) {
+            ThreadUtils.sleep(500);
+            connected = UserUtils.isAlreadyConnected(accountId);
+        }
 
-                if (Password.isInvalidAddressHash(address, sessionHash)) {
-                    throw new AuthenticationException("Invalid session hash.",
-                            AuthenticationCode.SYSTEM_PROBLEM);
-                }
+        if (connected) {
+            throw new AuthenticationException("The account is already connected.",
+                    AuthenticationCode.ALREADY_CONNECTED);
+        }
 
-                if (!UserInfo.hasCharacter(characterId, accountId)) {
-                    throw new AuthenticationException("The account if not the character owner.",
-                            AuthenticationCode.ACCESS_FAILURE);
-                }
+        try {
+            if (isInvalidSessionHash(address, sessionHash)) {
+                throw new AuthenticationException("Invalid session hash.",
+                        AuthenticationCode.SYSTEM_PROBLEM);
             }
-        } catch (SQLException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+        } catch (GeneralSecurityException e) {
             throw new AuthenticationException(e.getMessage(), AuthenticationCode.AUTH_FAILURE);
         }
+
+        if (!UserInfo.hasCharacter(characterId, accountId)) {
+            throw new AuthenticationException("The account if not the character owner.",
+                    AuthenticationCode.ACCESS_FAILURE);
+        }
     }
 
-    public static synchronized void gameLogin(Session session, ClientMessage msg) {
-        int sessionId = msg.readInt();
+    public static void gameLogin(Session session, ClientMessage msg) {
+        long startTime = System.nanoTime();
+        boolean success = false;
 
-        int accountId = SessionInfo.getUserId(sessionId);
-        int characterId = SessionInfo.getPlayerId(sessionId);
+        int sessionId = msg.readInt();
 
-        String hash = SessionInfo.getHash(sessionId);
+        // Read once, the session was created by the main server
+        Optional<SessionInfo.Entry> sessionInfo = SessionInfo.get(sessionId);
+        int accountId = sessionInfo.map(SessionInfo.Entry::getUserId).orElse(-1);
+        int characterId = sessionInfo.map(SessionInfo.Entry::getPlayerId).orElse(-1);
+        String hash = sessionInfo.map(SessionInfo.Entry::getHash).orElse(null);
 
         // Reject the request if the character assigned to
         // this session is not the same as the one specified by the client
@@ -192,30 +240,54 @@ public class Authenticator {
         }
 
         try {
-            gameAuthenticate(accountId, characterId, session.getRemoteAddress(), hash);
+            AccountLocks.run(accountId, () -> {
+                gameAuthenticate(accountId, characterId, session.getRemoteAddress(), hash);
+
+                CharacterCache.load(characterId);
+
+                session.setAuthenticated(true);
+                session.setModerator(PlayerInfo.isModerator(characterId));
+                session.setVisible(PlayerInfo.isVisible(characterId));
+                // Kept in memory while the session is registered, and written back by the cache
+                session.setFriendsList(PlayerInfo.getFriendsList(characterId));
+                session.setIgnoredList(PlayerInfo.getIgnoredList(characterId));
+                SessionInfo.resetExpiration(sessionId);
 
-            session.setAuthenticated(true);
-            SessionInfo.resetExpiration(sessionId);
+                session.setUserId(accountId);
+                session.setPlayerId(characterId);
+                session.setSessionId(sessionId);
 
-            session.setUserId(accountId);
-            session.setPlayerId(characterId);
-            session.setSessionId(sessionId);
+                UserInfo.setServer(ServerManager.getServerId(), session.getUserId());
+                UserInfo.setOnline(characterId, session.getUserId());
 
-            UserInfo.setServer(ServerManager.getServerId(), session.getUserId());
-            UserInfo.setOnline(characterId, session.getUserId());
+                ServerManager.addPlayer(characterId, session);
+            });
 
-            ServerManager.addPlayer(characterId, session);
             LobbyManager.addPlayer(characterId);
 
+            ClubRoster.refresh(session);
             ClubManager.onMemberConnectedStateChanged(session);
 
             session.send(MessageBuilder.gameLogin((short) 0));
+            success = true;
         } catch (AuthenticationException e) {
             session.send(MessageBuilder.gameLogin((short) e.getErrorCode()));
             session.close();
+        } finally {
+            LoginMetrics.onLoginFinished(LoginType.GAME, System.nanoTime() - startTime, success);
         }
     }
 
+    /** Only the hashes of sessions created before the address MAC need the hashing pool. */
+    private static boolean isInvalidSessionHash(InetAddress address, String sessionHash)
+            throws GeneralSecurityException {
+        if (Password.isLegacyAddressHash(sessionHash)) {
+            return HashingExecutor.call(() -> Password.isInvalidAddressHash(address, sessionHash));
+        }
+
+        return Password.isInvalidAddressHash(address, sessionHash);
+    }
+
     private static void gameAuthenticate(int accountId, int characterId,
                                          InetAddress address,
                                          String sessionHash) throws AuthenticationException {
@@ -244,18 +316,18 @@ public class Authenticator {
         }
 
         try {
-            if (Password.isInvalidAddressHash(address, sessionHash)) {
+            if (isInvalidSessionHash(address, sessionHash)) {
                 throw new AuthenticationException("Invalid session hash.",
                         AuthenticationCode.SYSTEM_PROBLEM);
             }
-
-            if (CharacterUtils.shouldUpdatePosition(characterId)) {
-                throw new AuthenticationException("Player must update to an advanced position.",
-                        AuthenticationCode.SYSTEM_PROBLEM);
-            }
-        } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+        } catch (GeneralSecurityException e) {
             throw new AuthenticationException(e.getMessage(), AuthenticationCode.SYSTEM_PROBLEM);
         }
+
+        if (CharacterUtils.shouldUpdatePosition(characterId)) {
+            throw new AuthenticationException("Player must update to an advanced position.",
+                    AuthenticationCode.SYSTEM_PROBLEM);
+        }
     }
 
     public static void udpConfirm(Session session) {
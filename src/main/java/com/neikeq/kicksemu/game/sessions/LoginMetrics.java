@@ -0,0 +1,77 @@
+package com.neikeq.kicksemu.game.sessions;
+
+import com.neikeq.kicksemu.utils.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counters and latency histograms of the logins handled by this server. */
+public class LoginMetrics {
+
+    public enum LoginType {
+        CERTIFY, INSTANT, GAME
+    }
+
+    private static final LoginType[] TYPES = LoginType.values();
+
+    private static final AtomicLong[] succeeded = new AtomicLong[TYPES.length];
+    private static final AtomicLong[] failed = new AtomicLong[TYPES.length];
+    private static final LatencyHistogram[] latencies = new LatencyHistogram[TYPES.length];
+
+    private static long lastSampleTime = System.nanoTime();
+    private static long lastSampleLogins;
+
+    static {
+        for (LoginType type : TYPES) {
+            succeeded[type.ordinal()] = new AtomicLong();
+            failed[type.ordinal()] = new AtomicLong();
+            latencies[type.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    static void onLoginFinished(LoginType type, long elapsedNanos, boolean success) {
+        (success ? succeeded : failed)[type.ordinal()].incrementAndGet();
+        latencies[type.ordinal()].recordNanos(elapsedNanos);
+    }
+
+    public static long getSucceeded(LoginType type) {
+        return succeeded[type.ordinal()].get();
+    }
+
+    public static long getFailed(LoginType type) {
+        return failed[type.ordinal()].get();
+    }
+
+    /** Logins handled per second since the last time this method was called. */
+    public static synchronized double getLoginsPerSecond() {
+        long now = System.nanoTime();
+        long logins = 0;
+
+        for (LoginType type : TYPES) {
+            logins += getSucceeded(type) + getFailed(type);
+        }
+
+        long elapsed = now - lastSampleTime;
+        double rate = (elapsed > 0) ?
+                ((logins - lastSampleLogins) * 1000000000.0) / elapsed : 0;
+
+        lastSampleTime = now;
+        lastSampleLogins = logins;
+
+        return rate;
+    }
+
+    /** Describes the counters and latency percentiles of a login type. */
+    public static String describe(LoginType type) {
+        LatencyHistogram latency = latencies[type.ordinal()];
+
+        return String.format("%s: %d succeeded, %d failed, " +
+                        "latency us p50 %d p99 %d max %d",
+                type, getSucceeded(type), getFailed(type),
+                latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                latency.getMax());
+    }
+
+    private LoginMetrics() {
+        throw new AssertionError();
+    }
+}
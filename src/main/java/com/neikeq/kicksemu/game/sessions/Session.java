@@ -1,25 +1,38 @@
 package com.neikeq.kicksemu.game.sessions;
 
+import com.neikeq.kicksemu.game.characters.CharacterCache;
+import com.neikeq.kicksemu.game.chat.Flood;
 import com.neikeq.kicksemu.game.clubs.ClubManager;
+import com.neikeq.kicksemu.game.clubs.ClubRoster;
 import com.neikeq.kicksemu.game.clubs.UniformType;
 import com.neikeq.kicksemu.game.lobby.Lobby;
+import com.neikeq.kicksemu.game.lobby.LobbyListEntry;
 import com.neikeq.kicksemu.game.lobby.LobbyManager;
+import com.neikeq.kicksemu.game.misc.UdpRelayTable;
+import com.neikeq.kicksemu.game.misc.friendship.FriendsList;
+import com.neikeq.kicksemu.game.misc.ignored.IgnoredList;
 import com.neikeq.kicksemu.game.rooms.enums.RoomLeaveReason;
 import com.neikeq.kicksemu.game.rooms.RoomManager;
 import com.neikeq.kicksemu.network.packets.out.ServerMessage;
 import com.neikeq.kicksemu.game.users.UserInfo;
 
+import com.neikeq.kicksemu.config.Constants;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.network.server.NetworkStats;
 import com.neikeq.kicksemu.network.server.ServerManager;
+import com.neikeq.kicksemu.storage.DatabaseExecutor;
+import com.neikeq.kicksemu.storage.DatabaseExecutor.SerialExecutor;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.Channel;
 import io.netty.util.concurrent.ScheduledFuture;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Session {
 
@@ -27,13 +40,20 @@ public class Session {
     private final Object locker = new Object();
     private final SessionCache sessionCache = new SessionCache(this);
     private final List<ByteBuf> packetsQueue = new ArrayList<>();
+    private final SerialExecutor messageQueue =
+            DatabaseExecutor.newSerialExecutor(this::onMessageQueueRejected);
+    private final Flood chatFlood = new Flood();
 
     private ScheduledFuture<?> udpPingFuture;
+    private volatile InetSocketAddress udpAddress;
+    private volatile Channel udpChannel;
+    private volatile UdpRelayTable relayTable;
 
     private int userId = -1;
     private int playerId = -1;
     private int sessionId = -1;
     private int roomId = -1;
+    private volatile int clubId = -1;
     private int ping = -1;
     private int udpPort = -1;
 
@@ -45,6 +65,15 @@ public class Session {
     private boolean authenticated;
     private boolean udpAuthenticated;
     private boolean observer;
+    private volatile boolean moderator;
+    private volatile boolean visible;
+
+    /** Incremented when the information shown in the lobby list changes. */
+    private final AtomicInteger lobbyEntryVersion = new AtomicInteger();
+    private volatile LobbyListEntry lobbyEntry;
+
+    private volatile FriendsList friendsList;
+    private volatile IgnoredList ignoredList;
 
     /**
      * Write a message to the channel without flushing.<br>
@@ -53,8 +82,12 @@ public class Session {
      * This increases the performance when writing multiple messages during a single reading.
      */
     public synchronized void send(ServerMessage msg) {
-        packetsQueue.add(msg.getByteBuf(playerId).copy());
+        // Only the header is written per session, the body is shared with other recipients
+        packetsQueue.add(msg.getHeader(playerId, getChannel().alloc()));
+        packetsQueue.add(msg.getRetainedBody());
         msg.release();
+
+        NetworkStats.addCopiedBytes(Constants.HEADER_SIZE);
     }
 
     /**
@@ -67,15 +100,15 @@ public class Session {
     }
 
     public synchronized void flush() {
-        final ByteBuf mergedPackets = ByteBufAllocator.DEFAULT.buffer().order(ByteOrder.LITTLE_ENDIAN);
+        if (packetsQueue.isEmpty()) {
+            return;
+        }
 
-        packetsQueue.forEach(packet -> {
-            try {
-                mergedPackets.writeBytes(packet);
-            } finally {
-                packet.release();
-            }
-        });
+        // The queued buffers are composed without copying them
+        final CompositeByteBuf mergedPackets = getChannel().alloc()
+                .compositeDirectBuffer(Math.max(2, packetsQueue.size()));
+        mergedPackets.addComponents(packetsQueue);
+        mergedPackets.writerIndex(mergedPackets.capacity());
 
         packetsQueue.clear();
 
@@ -89,6 +122,7 @@ public class Session {
     /** Called when the session leaved a room */
     public void onLeavedRoom() {
         roomId = -1;
+        relayTable = null;
 
         // If session is still alive, add it to the main lobby
         if (authenticated) {
@@ -143,10 +177,6 @@ public class Session {
             // Reduce the session lifetime. The client has 30 seconds to authenticate
             SessionInfo.reduceExpiration(getSessionId());
 
-            // Update user status on database
-            UserInfo.setServer((short) -1, userId);
-            UserInfo.setOnline(-1, userId);
-
             if (playerId > 0) {
                 // Remove session from the list of connected clients
                 ServerManager.removePlayer(playerId);
@@ -158,8 +188,33 @@ public class Session {
             leaveRoom(RoomLeaveReason.DISCONNECTED);
 
             ClubManager.onMemberConnectedStateChanged(this);
+            ClubRoster.removeMember(this);
 
             sessionCache.clear();
+
+            // Update user status on database. Another server may load the character
+            // as soon as the user is not online, so this is done after the write back
+            final int user = userId;
+            Runnable setOffline = () -> {
+                UserInfo.setServer((short) -1, user);
+                UserInfo.setOnline(-1, user);
+            };
+
+            if (playerId > 0) {
+                // Write back the character changes made during the session
+                CharacterCache.evict(playerId, setOffline);
+            } else {
+                setOffline.run();
+            }
+        }
+    }
+
+    /** The database pool is full, the client is disconnected instead of blocking the loop. */
+    private void onMessageQueueRejected() {
+        if (channel.isOpen()) {
+            Output.println("Database executor is full, closing connection from: " +
+                    channel.remoteAddress(), Level.WARNING);
+            channel.close();
         }
     }
 
@@ -179,6 +234,11 @@ public class Session {
         return channel;
     }
 
+    /** Queue where the messages of this session are handled in order, off the event loop. */
+    public SerialExecutor getMessageQueue() {
+        return messageQueue;
+    }
+
     public int getUserId() {
         return userId;
     }
@@ -193,6 +253,7 @@ public class Session {
 
     public void setPlayerId(int id) {
         playerId = id;
+        invalidateLobbyListEntry();
     }
 
     public boolean isUdpAuthenticated() {
@@ -215,6 +276,15 @@ public class Session {
         this.roomId = roomId;
     }
 
+    /** Club of the player as indexed by {@link ClubRoster}, or -1 if not a member. */
+    public int getClubId() {
+        return clubId;
+    }
+
+    public void setClubId(int clubId) {
+        this.clubId = clubId;
+    }
+
     public Object getLocker() {
         return locker;
     }
@@ -224,7 +294,34 @@ public class Session {
     }
 
     public void setUdpPort(int udpPort) {
-        this.udpPort = udpPort;
+        // Called for every udp packet, so the address is only rebuilt when the port changes
+        if ((this.udpPort != udpPort) || (udpAddress == null)) {
+            this.udpPort = udpPort;
+            udpAddress = ((udpPort >= 0) && (udpPort <= 0xFFFF)) ?
+                    new InetSocketAddress(getRemoteAddress(), udpPort) : null;
+        }
+    }
+
+    /** Cached address where the udp packets for this session are sent. May be null. */
+    public InetSocketAddress getUdpAddress() {
+        return udpAddress;
+    }
+
+    /** Udp channel which received the last packet from this session. May be null. */
+    public Channel getUdpChannel() {
+        return udpChannel;
+    }
+
+    public void setUdpChannel(Channel udpChannel) {
+        this.udpChannel = udpChannel;
+    }
+
+    public UdpRelayTable getRelayTable() {
+        return relayTable;
+    }
+
+    public void setRelayTable(UdpRelayTable relayTable) {
+        this.relayTable = relayTable;
     }
 
     public boolean isObserver() {
@@ -235,6 +332,46 @@ public class Session {
         this.observer = observer;
     }
 
+    public boolean isModerator() {
+        return moderator;
+    }
+
+    public void setModerator(boolean moderator) {
+        this.moderator = moderator;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
+    /** Moderators are hidden from the lobby list unless they enabled the visible mode. */
+    public boolean isVisibleInLobby() {
+        return !moderator || visible;
+    }
+
+    /** Returns the encoded lobby list entry of this player, encoding it if it is outdated. */
+    public byte[] getLobbyListEntry() {
+        // Read before encoding so changes made meanwhile outdate the new entry
+        int version = lobbyEntryVersion.get();
+        LobbyListEntry entry = lobbyEntry;
+
+        if ((entry == null) || (entry.getVersion() != version)) {
+            entry = LobbyListEntry.encode(playerId, version);
+            lobbyEntry = entry;
+        }
+
+        return entry.getBytes();
+    }
+
+    /** Must be called after changing the name, level, position or status message. */
+    public void invalidateLobbyListEntry() {
+        lobbyEntryVersion.incrementAndGet();
+    }
+
     public int getPingRay() {
         int pingRay = 0; // red ping by default
 
@@ -259,6 +396,28 @@ public class Session {
         this.pingState = pingState;
     }
 
+    /** Friends list loaded on game login, or null if the player is not logged in. */
+    public FriendsList getFriendsList() {
+        return friendsList;
+    }
+
+    public void setFriendsList(FriendsList friendsList) {
+        this.friendsList = friendsList;
+    }
+
+    /** Ignored list loaded on game login, or null if the player is not logged in. */
+    public IgnoredList getIgnoredList() {
+        return ignoredList;
+    }
+
+    public void setIgnoredList(IgnoredList ignoredList) {
+        this.ignoredList = ignoredList;
+    }
+
+    public Flood getChatFlood() {
+        return chatFlood;
+    }
+
     public SessionCache getCache() {
         return sessionCache;
     }
@@ -0,0 +1,39 @@
+package com.neikeq.kicksemu.game.sessions;
+
+import com.neikeq.kicksemu.network.packets.out.ServerMessage;
+import com.neikeq.kicksemu.network.server.ServerManager;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Sends a message to many sessions encoding it only once.<br>
+ * Every recipient gets its own header while the body is shared without copying it.
+ */
+public class SessionBroadcaster {
+
+    /** Sends the message to the sessions and releases it. */
+    public static void broadcast(ServerMessage msg, Stream<Session> sessions) {
+        try {
+            sessions.forEach(session -> session.sendAndFlush(msg.retain()));
+        } finally {
+            msg.release();
+        }
+    }
+
+    /** Sends the message to the connected players that pass the filter and releases it. */
+    public static void broadcast(ServerMessage msg, Collection<Integer> players,
+                                 IntPredicate filter) {
+        broadcast(msg, players.stream()
+                .filter(filter::test)
+                .map(ServerManager::getSession)
+                .filter(Optional::isPresent)
+                .map(Optional::get));
+    }
+
+    private SessionBroadcaster() {
+        throw new AssertionError();
+    }
+}
@@ -4,34 +4,62 @@ import com.neikeq.kicksemu.io.Output;
 import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.storage.ConnectionRef;
 import com.neikeq.kicksemu.storage.SqlUtils;
-import com.neikeq.kicksemu.utils.RandomGenerator;
 
-import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sessions created by the main server and used to log in to the game servers.<br>
+ * The sessions created by this server are kept in memory, so they are read without
+ * querying the database. Only this server modifies their user, player and hash.
+ * Sessions handed off from another server are always read from the sessions table,
+ * since the server that created them may modify them at any time.
+ */
 public class SessionInfo {
 
     private static final String TABLE = "sessions";
 
+    private static final long SESSION_LIFETIME = TimeUnit.DAYS.toMillis(1);
+    private static final long REDUCED_LIFETIME = TimeUnit.SECONDS.toMillis(30);
+    /** Expired sessions are purged from memory once every this many sessions stored. */
+    private static final int PURGE_INTERVAL = 256;
+
+    private static final Map<Integer, Entry> sessions = new ConcurrentHashMap<>();
+    private static final AtomicInteger insertions = new AtomicInteger();
+    private static final SecureRandom random = new SecureRandom();
+
     public static int getPlayerId(int sessionId, ConnectionRef... con) {
-        return getInt("player_id", sessionId, con);
+        return get(sessionId, con).map(entry -> entry.playerId).orElse(-1);
     }
 
     public static void setPlayerId(int playerId, int sessionId, ConnectionRef ... con) {
+        Entry entry = sessions.get(sessionId);
+
+        if (entry != null) {
+            entry.playerId = playerId;
+        }
+
         SqlUtils.setInt("player_id", playerId, TABLE, sessionId, con);
     }
 
     public static int getUserId(int sessionId, ConnectionRef ... con) {
-        return getInt("user_id", sessionId, con);
+        return get(sessionId, con).map(entry -> entry.userId).orElse(-1);
     }
 
     public static String getHash(int sessionId, ConnectionRef ... con) {
-        return getString(sessionId, con);
+        return get(sessionId, con).map(entry -> entry.hash).orElse(null);
     }
 
     public static void reduceExpiration(int sessionId) {
+        setExpiration(sessionId, REDUCED_LIFETIME);
+
         final String query = "UPDATE " + TABLE + " SET expiration = CURRENT_TIMESTAMP + " +
                 "INTERVAL 30 SECOND WHERE id = ?";
 
@@ -47,6 +75,8 @@ public class SessionInfo {
     }
 
     public static void remove(int sessionId) {
+        sessions.remove(sessionId);
+
         final String query = "DELETE FROM " + TABLE + " WHERE id = ?";
 
         try (ConnectionRef con = ConnectionRef.ref();
@@ -60,6 +90,8 @@ public class SessionInfo {
     }
 
     public static void resetExpiration(int sessionId) {
+        setExpiration(sessionId, SESSION_LIFETIME);
+
         final String query = "UPDATE " + TABLE + " SET expiration = CURRENT_TIMESTAMP + " +
                 "INTERVAL 1 DAY WHERE id = ?";
 
@@ -74,22 +106,26 @@ public class SessionInfo {
         }
     }
 
-    public static int generateSessionId() {
-        final String query = "SELECT FLOOR((RAND() * 4294967295) - 2147483648) " +
-                "AS random_session_id FROM " + TABLE + " WHERE \"random_session_id\" " +
-                "NOT IN (SELECT id FROM " + TABLE + ") LIMIT 1";
+    /**
+     * Creates a session with a random id that is not used by any session in memory.
+     * @return the id of the new session
+     */
+    public static int createSession(int userId, int playerId, String hash) {
+        Entry entry = new Entry(userId, playerId, hash,
+                System.currentTimeMillis() + SESSION_LIFETIME);
 
-        try (ConnectionRef con = ConnectionRef.ref();
-             PreparedStatement stmt = con.prepareStatement(query)) {
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next() ? rs.getInt("random_session_id") : RandomGenerator.randomInt();
-            }
-        } catch (SQLException | NoSuchAlgorithmException e) {
-            return -1;
-        }
+        int sessionId;
+
+        do {
+            sessionId = random.nextInt();
+        } while ((sessionId == -1) || (putIfAbsent(sessionId, entry) != null));
+
+        insertSession(sessionId, userId, playerId, hash);
+
+        return sessionId;
     }
 
-    public static void insertSession(int sessionId, int userId, int playerId, String hash) {
+    private static void insertSession(int sessionId, int userId, int playerId, String hash) {
         final String query = "INSERT INTO " + TABLE + " (id, user_id, player_id, hash, expiration) " +
                 "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP + INTERVAL 1 DAY)";
 
@@ -107,38 +143,95 @@ public class SessionInfo {
         }
     }
 
-    private static int getInt(String column, int id, ConnectionRef ... con) {
-        final String query = "SELECT " + column + " FROM " + TABLE +
+    private static Entry putIfAbsent(int sessionId, Entry entry) {
+        Entry current = sessions.putIfAbsent(sessionId, entry);
+
+        if (current == null) {
+            onSessionStored();
+        }
+
+        return current;
+    }
+
+    private static void onSessionStored() {
+        if ((insertions.incrementAndGet() % PURGE_INTERVAL) == 0) {
+            long now = System.currentTimeMillis();
+            sessions.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    private static void setExpiration(int sessionId, long lifetime) {
+        Entry entry = sessions.get(sessionId);
+
+        if (entry != null) {
+            entry.expiration = System.currentTimeMillis() + lifetime;
+        }
+    }
+
+    /**
+     * Returns the session from memory if this server created it, or reads it
+     * from the database otherwise or if it is expired in memory.
+     */
+    static Optional<Entry> get(int sessionId, ConnectionRef ... con) {
+        Entry entry = sessions.get(sessionId);
+
+        if ((entry != null) && !entry.isExpired(System.currentTimeMillis())) {
+            return Optional.of(entry);
+        }
+
+        return load(sessionId, con);
+    }
+
+    private static Optional<Entry> load(int sessionId, ConnectionRef ... con) {
+        final String query = "SELECT user_id, player_id, hash FROM " + TABLE +
                 " WHERE id = ? AND expiration > CURRENT_TIMESTAMP";
 
-        try (ConnectionRef connection = ConnectionRef.ref(con)) {
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setInt(1, id);
+        try (ConnectionRef connection = ConnectionRef.ref(con);
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, sessionId);
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    return rs.next() ? rs.getInt(column) : -1;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
                 }
+
+                // Not stored in memory, the next read must see the changes of other servers
+                return Optional.of(new Entry(rs.getInt("user_id"), rs.getInt("player_id"),
+                        rs.getString("hash"), System.currentTimeMillis() + REDUCED_LIFETIME));
             }
         } catch (SQLException e) {
-            return -1;
+            return Optional.empty();
         }
     }
 
-    private static String getString(int id, ConnectionRef ... con) {
-        try (ConnectionRef connection = ConnectionRef.ref(con)) {
-            final String column = "hash";
-            final String query = "SELECT " + column + " FROM " + TABLE +
-                    " WHERE id = ? AND expiration > CURRENT_TIMESTAMP";
+    static class Entry {
 
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setInt(1, id);
+        private final int userId;
+        private final String hash;
+        private volatile int playerId;
+        private volatile long expiration;
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    return rs.next() ? rs.getString(column) : null;
-                }
-            }
-        } catch (SQLException e) {
-            return null;
+        private Entry(int userId, int playerId, String hash, long expiration) {
+            this.userId = userId;
+            this.playerId = playerId;
+            this.hash = hash;
+            this.expiration = expiration;
+        }
+
+        int getUserId() {
+            return userId;
+        }
+
+        int getPlayerId() {
+            return playerId;
+        }
+
+        String getHash() {
+            return hash;
+        }
+
+        private boolean isExpired(long now) {
+            return expiration <= now;
         }
     }
 }
@@ -3,14 +3,14 @@ package com.neikeq.kicksemu.game.sessions;
 import com.neikeq.kicksemu.game.misc.Moderation;
 import com.neikeq.kicksemu.io.Output;
 import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.utils.HashingExecutor;
 import com.neikeq.kicksemu.utils.Password;
 import com.neikeq.kicksemu.utils.RandomGenerator;
 import io.netty.channel.Channel;
 import io.netty.util.AttributeKey;
 
 import java.net.InetSocketAddress;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
+import java.security.GeneralSecurityException;
 
 public class SessionManager {
 
@@ -36,21 +36,25 @@ public class SessionManager {
         return channel.attr(SESSIONS_KEY).get();
     }
 
-    public static synchronized void generateSession(Session session) {
-        int sessionId = SessionInfo.generateSessionId();
-
+    public static void generateSession(Session session) {
         String hash = "";
 
         try {
-            byte[] salt = RandomGenerator.randomBytes(24);
-            byte[] addressHash = Password.hashAddress(session.getRemoteAddress(), salt);
-            hash = Password.toBase64(salt) + "$" + Password.toBase64(addressHash);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            if (Password.isAddressMacEnabled()) {
+                hash = Password.addressMac(session.getRemoteAddress());
+            } else {
+                // Without a shared secret the slower salted hash is used
+                byte[] salt = RandomGenerator.randomBytes(24);
+                byte[] addressHash = HashingExecutor.call(() ->
+                        Password.hashAddress(session.getRemoteAddress(), salt));
+                hash = Password.toBase64(salt) + "$" + Password.toBase64(addressHash);
+            }
+        } catch (GeneralSecurityException e) {
             Output.println("Exception when generating session hash: " +
                     e.getMessage(), Level.DEBUG);
         }
 
-        SessionInfo.insertSession(sessionId, session.getUserId(), session.getPlayerId(), hash);
-        session.setSessionId(sessionId);
+        session.setSessionId(SessionInfo.createSession(session.getUserId(),
+                session.getPlayerId(), hash));
     }
 }
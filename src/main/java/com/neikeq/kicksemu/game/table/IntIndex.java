@@ -0,0 +1,66 @@
+package com.neikeq.kicksemu.game.table;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable open addressing map with primitive int keys.<br>
+ * Built once when a table is loaded, so lookups do not box the key nor scan the table.
+ */
+class IntIndex<V> {
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    private IntIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize * 2) - 1) << 1;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    static <V> IntIndex<V> of(Map<? extends Number, V> table) {
+        IntIndex<V> index = new IntIndex<>(table.size());
+        table.forEach((key, value) -> index.put(key.intValue(), value));
+        return index;
+    }
+
+    private void put(int key, Object value) {
+        int slot = slotOf(key);
+
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int slot = slotOf(key);
+        Object value;
+
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                return (V) value;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    Optional<V> find(int key) {
+        return Optional.ofNullable(get(key));
+    }
+
+    private int slotOf(int key) {
+        // Spread the bits since ids are usually sequential
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -6,38 +6,43 @@ import com.neikeq.kicksemu.io.Output;
 import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.utils.SeasonRange;
 import com.neikeq.kicksemu.utils.DateUtils;
-import com.neikeq.kicksemu.utils.table.Row;
+import com.neikeq.kicksemu.utils.table.BinaryTables;
 import com.neikeq.kicksemu.utils.table.TableReader;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class TableManager {
 
-    public static int EXPERIENCE_LIMIT;
-    public static byte LEVEL_LIMIT;
+    public static volatile int EXPERIENCE_LIMIT;
+    public static volatile byte LEVEL_LIMIT;
 
     private static final Map<String, String> tables = new HashMap<>();
 
-    private static final Map<Integer, SkillInfo> skillsTable = new HashMap<>();
-    private static final Map<Integer, CeleInfo> celebrationsTable = new HashMap<>();
-    private static final Map<Integer, LearnInfo> learnTable = new HashMap<>();
-    private static final Map<Integer, ItemFree> itemFreeTable = new HashMap<>();
-    private static final Map<Integer, ItemInfo> itemTable = new HashMap<>();
-    private static final Map<Integer, BonusInfo> bonusTable = new HashMap<>();
-    private static final Map<Integer, OptionInfo> optionTable = new HashMap<>();
-    private static final Map<Short, LevelInfo> levelTable = new HashMap<>();
-    private static final Map<Short, MissionInfo> missionTable = new HashMap<>();
-    private static final Map<Short, InitialItem> initialItemsTable = new HashMap<>();
+    private static final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "table-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private static final List<Short> missionsList = new ArrayList<>();
+    /** Tables currently in use. Replaced as a whole when the tables are reloaded. */
+    private static volatile TableSnapshot snapshot;
+
+    /** Precompiled tables, or null if they are disabled or were not compiled yet. */
+    private static volatile BinaryTables binaryTables;
+    /** True if some table was read from its csv file the last time the tables were loaded. */
+    private static volatile boolean binaryTablesOutdated;
 
     public static void initialize() {
         tables.put(Constants.PROPERTY_TABLE_SKILL, Constants.TABLE_SKILL_DEFAULT);
@@ -56,228 +61,209 @@ public class TableManager {
 
         updateOverriddenTables();
 
-        initializeItemFreeTable();
-        initializeSkillTable();
-        initializeCeleTable();
-        initializeLearnTable();
-        initializeItemTable();
-        initializeBonusTable();
-        initializeOptionTable();
-        initializeLevelTable();
-        initializeMissionTable();
-        initializeInitialItemsTable();
-
-        // After table initialization
-        missionsList.addAll(missionTable.keySet().stream().collect(Collectors.toList()));
+        if (isBinaryTablesEnabled()) {
+            binaryTables = BinaryTables.open(Constants.TABLE_SNAPSHOT).orElse(null);
+        }
 
-        LevelInfo lastLevel = levelTable.get(Collections.max(levelTable.keySet()));
-        EXPERIENCE_LIMIT = lastLevel.getExperience() + lastLevel.getExperienceGap();
-        LEVEL_LIMIT = (byte) lastLevel.getLevel();
+        setSnapshot(new TableSnapshot(TableManager::openTable));
+        compileTablesIfOutdated();
     }
 
-    public static Optional<SkillInfo> getSkillInfo(Predicate<SkillInfo> filter) {
-        return skillsTable.values().stream().filter(filter).findFirst();
+    /**
+     * Parses the tables again in a background thread and replaces the current ones
+     * once all of them are loaded. The current tables are kept if the parsing fails.
+     * @return a future completed with true if the tables were replaced
+     */
+    public static CompletableFuture<Boolean> reload() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                setSnapshot(new TableSnapshot(TableManager::openTable));
+                Output.println("Tables reloaded.", Level.INFO);
+                compileTablesIfOutdated();
+                return true;
+            } catch (RuntimeException e) {
+                Output.println("Exception when reloading tables: " + e.getMessage(),
+                        Level.WARNING);
+                return false;
+            }
+        }, reloadExecutor);
     }
 
-    public static Optional<LevelInfo> getLevelInfo(Predicate<LevelInfo> filter) {
-        return levelTable.values().stream().filter(filter).reduce((previous, current) -> current);
+    /**
+     * Compiles the csv tables into the binary snapshot loaded on the next start.
+     * @return a future completed with true if the snapshot was written
+     */
+    public static CompletableFuture<Boolean> compileTables() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                BinaryTables.compile(Constants.TABLE_SNAPSHOT, TableSnapshot.PROPERTIES.stream()
+                        .map(TableManager::getTablePath)
+                        .collect(Collectors.toList()));
+
+                binaryTables = BinaryTables.open(Constants.TABLE_SNAPSHOT).orElse(null);
+                binaryTablesOutdated = false;
+                return true;
+            } catch (IOException e) {
+                Output.println("Exception when compiling tables: " + e.getMessage(),
+                        Level.WARNING);
+                return false;
+            }
+        }, reloadExecutor);
     }
 
-    public static Optional<CeleInfo> getCeleInfo(Predicate<CeleInfo> filter) {
-        return celebrationsTable.values().stream().filter(filter).findFirst();
+    private static void compileTablesIfOutdated() {
+        if (isBinaryTablesEnabled() && binaryTablesOutdated) {
+            compileTables();
+        }
     }
 
-    public static Optional<LearnInfo> getLearnInfo(Predicate<LearnInfo> filter) {
-        return learnTable.values().stream().filter(filter).findFirst();
+    private static boolean isBinaryTablesEnabled() {
+        return Configuration.getBoolean("table.snapshot");
     }
 
-    public static Optional<ItemFree> getItemFree(Predicate<ItemFree> filter) {
-        return itemFreeTable.values().stream().filter(filter).findFirst();
-    }
+    /** Returns a reader of the precompiled table if it is up to date, or of the csv file. */
+    private static TableReader openTable(String property) {
+        String path = getTablePath(property);
+        BinaryTables compiled = binaryTables;
 
-    public static Optional<ItemInfo> getItemInfo(Predicate<ItemInfo> filter) {
-        return itemTable.values().stream().filter(filter).findFirst();
+        Optional<TableReader> reader = (compiled != null) ?
+                compiled.reader(path) : Optional.empty();
+
+        if (!reader.isPresent()) {
+            binaryTablesOutdated = true;
+        }
+
+        return reader.orElseGet(() -> new TableReader(path));
     }
 
-    public static Optional<BonusInfo> getBonusInfo(Predicate<BonusInfo> filter) {
-        return bonusTable.values().stream().filter(filter).findFirst();
+    private static void setSnapshot(TableSnapshot newSnapshot) {
+        snapshot = newSnapshot;
+
+        EXPERIENCE_LIMIT = newSnapshot.experienceLimit;
+        LEVEL_LIMIT = newSnapshot.levelLimit;
     }
 
-    public static Optional<OptionInfo> getOptionInfo(Predicate<OptionInfo> filter) {
-        return optionTable.values().stream().filter(filter).findFirst();
+    public static Optional<SkillInfo> getSkillInfo(int id) {
+        return snapshot.skillsById.find(id);
     }
 
-    public static Optional<MissionInfo> getMissionInfo(Predicate<MissionInfo> filter) {
-        return missionTable.values().stream().filter(filter).findFirst();
+    public static Optional<CeleInfo> getCeleInfo(int id) {
+        return snapshot.celebrationsById.find(id);
     }
 
-    public static List<InitialItem> getInitialItems(int position) {
-        return initialItemsTable.values().stream()
-                .filter(item -> item.getPosition() == position)
-                .collect(Collectors.toList());
+    public static Optional<LearnInfo> getLearnInfo(int id) {
+        return snapshot.learnById.find(id);
     }
 
-    private static void initializeSkillTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_SKILL));
+    public static Optional<ItemFree> getItemFree(int id) {
+        return snapshot.itemFreeById.find(id);
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                SkillInfo element = new SkillInfo(maybeRow.get());
-                skillsTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+    public static Optional<ItemInfo> getItemInfo(int id) {
+        return snapshot.itemsById.find(id);
     }
 
-    private static void initializeCeleTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_CELE));
+    public static Optional<BonusInfo> getBonusInfo(int type) {
+        return snapshot.bonusByType.find(type);
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                CeleInfo element = new CeleInfo(maybeRow.get());
-                celebrationsTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+    public static Optional<OptionInfo> getOptionInfo(int id) {
+        return snapshot.optionsById.find(id);
     }
 
-    private static void initializeLearnTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_LEARN));
+    public static Optional<LevelInfo> getLevelInfo(int level) {
+        return snapshot.levelsByLevel.find(level);
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                LearnInfo element = new LearnInfo(maybeRow.get());
-                learnTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
+    /** @return the highest level whose required experience is not greater than exp */
+    public static short getLevelByExperience(int exp) {
+        TableSnapshot current = snapshot;
+        int[] levelThresholds = current.levelThresholds;
+        int index = Arrays.binarySearch(levelThresholds, exp);
+
+        if (index < 0) {
+            // Insertion point minus one is the last threshold below exp
+            index = -index - 2;
+        } else {
+            // Skip to the last level sharing the same threshold
+            while ((index + 1 < levelThresholds.length) && (levelThresholds[index + 1] == exp)) {
+                index++;
             }
         }
+
+        return (index >= 0) ? current.thresholdLevels[index] : 0;
     }
 
-    private static void initializeItemFreeTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_ITEM_FREE));
+    /** Returns true if the experience is enough to get a level higher than the specified. */
+    public static boolean isLevelUp(short level, int exp) {
+        LevelInfo nextLevel = snapshot.levelsByLevel.get(level + 1);
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                ItemFree element = new ItemFree(maybeRow.get());
-                itemFreeTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+        return (nextLevel != null) ?
+                exp >= nextLevel.getExperience() :
+                getLevelByExperience(exp) > level;
     }
 
-    private static void initializeItemTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_ITEM));
-
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                ItemInfo element = new ItemInfo(maybeRow.get());
-                itemTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+    public static Optional<MissionInfo> getMissionInfo(int id) {
+        return snapshot.missionsById.find(id);
     }
 
-    private static void initializeBonusTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_BONUS));
+    /*
+     * The following lookups scan the whole table.
+     * They are kept for queries that cannot be answered by the indexes.
+     */
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                BonusInfo element = new BonusInfo(maybeRow.get());
-                bonusTable.put(element.getType(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+    public static Optional<SkillInfo> getSkillInfo(Predicate<SkillInfo> filter) {
+        return snapshot.skillsTable.values().stream().filter(filter).findFirst();
     }
 
-    private static void initializeOptionTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_OPTION));
+    public static Optional<LevelInfo> getLevelInfo(Predicate<LevelInfo> filter) {
+        return snapshot.levelTable.values().stream().filter(filter)
+                .reduce((previous, current) -> current);
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                OptionInfo element = new OptionInfo(maybeRow.get());
-                optionTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+    public static Optional<CeleInfo> getCeleInfo(Predicate<CeleInfo> filter) {
+        return snapshot.celebrationsTable.values().stream().filter(filter).findFirst();
     }
 
-    private static void initializeLevelTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_LEVEL));
+    public static Optional<LearnInfo> getLearnInfo(Predicate<LearnInfo> filter) {
+        return snapshot.learnTable.values().stream().filter(filter).findFirst();
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            try {
-                LevelInfo element = new LevelInfo(maybeRow.get());
-                levelTable.put(element.getLevel(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), maybeRow.get(), reader.getIndex());
-            }
-        }
+    public static Optional<ItemFree> getItemFree(Predicate<ItemFree> filter) {
+        return snapshot.itemFreeTable.values().stream().filter(filter).findFirst();
     }
 
-    private static void initializeMissionTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_MISSION));
+    public static Optional<ItemInfo> getItemInfo(Predicate<ItemInfo> filter) {
+        return snapshot.itemTable.values().stream().filter(filter).findFirst();
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            Row row = maybeRow.get();
-            try {
-                boolean enabled = Integer.valueOf(row.columnAt(5)
-                        .orElseThrow(ParseRowException::new)) == 1;
-                if (enabled) {
-                    MissionInfo element = new MissionInfo(row);
-                    missionTable.put(element.getId(), element);
-                }
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), row, reader.getIndex());
-            }
-        }
+    public static Optional<BonusInfo> getBonusInfo(Predicate<BonusInfo> filter) {
+        return snapshot.bonusTable.values().stream().filter(filter).findFirst();
     }
 
-    private static void initializeInitialItemsTable() {
-        TableReader reader = new TableReader(getTablePath(Constants.PROPERTY_TABLE_INITIAL_ITEMS));
+    public static Optional<OptionInfo> getOptionInfo(Predicate<OptionInfo> filter) {
+        return snapshot.optionTable.values().stream().filter(filter).findFirst();
+    }
 
-        Optional<Row> maybeRow;
-        while ((maybeRow = reader.nextRow()).isPresent()) {
-            Row row = maybeRow.get();
-            try {
-                InitialItem element = new InitialItem(row);
-                initialItemsTable.put(element.getId(), element);
-            } catch (ParseRowException e) {
-                printParseWarning(e, reader.getTablePath(), row, reader.getIndex());
-            }
-        }
+    public static Optional<MissionInfo> getMissionInfo(Predicate<MissionInfo> filter) {
+        return snapshot.missionTable.values().stream().filter(filter).findFirst();
     }
 
-    private static void printParseWarning(ParseRowException e, String path, Row row, int index) {
-        Output.prints(Level.WARNING, e.getMessage(),
-                "Table:", path,
-                "Index:", String.valueOf(index),
-                "Column:", row.lastColumnIndex());
+    public static List<InitialItem> getInitialItems(int position) {
+        List<InitialItem> initialItems = snapshot.initialItemsByPosition.get(position);
+        return (initialItems != null) ? initialItems : Collections.emptyList();
     }
 
-    private static boolean isMissionUsable(short mission, Date date) {
-        SeasonRange eventDate = missionTable.get(mission).getSeason();
+    private static boolean isMissionUsable(MissionInfo mission, Date date) {
+        SeasonRange eventDate = mission.getSeason();
         return (eventDate == null) || eventDate.isWithinRange(date);
     }
 
     public static List<Short> getUsableMissionsList() {
-        return missionsList.stream()
-                .filter(m -> isMissionUsable(m, DateUtils.getDate()))
+        TableSnapshot current = snapshot;
+
+        return current.missionsList.stream()
+                .filter(m -> isMissionUsable(current.missionTable.get(m), DateUtils.getDate()))
                 .collect(Collectors.toList());
     }
 
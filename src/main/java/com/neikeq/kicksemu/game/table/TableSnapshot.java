@@ -0,0 +1,170 @@
+package com.neikeq.kicksemu.game.table;
+
+import com.neikeq.kicksemu.config.Constants;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.utils.table.Row;
+import com.neikeq.kicksemu.utils.table.TableReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable set of the game tables and their indexes.<br>
+ * A new snapshot is built every time the tables are loaded, so readers never see
+ * a partially loaded table.
+ */
+class TableSnapshot {
+
+    /** Properties of the tables contained in a snapshot. */
+    static final List<String> PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+            Constants.PROPERTY_TABLE_ITEM_FREE, Constants.PROPERTY_TABLE_SKILL,
+            Constants.PROPERTY_TABLE_CELE, Constants.PROPERTY_TABLE_LEARN,
+            Constants.PROPERTY_TABLE_ITEM, Constants.PROPERTY_TABLE_BONUS,
+            Constants.PROPERTY_TABLE_OPTION, Constants.PROPERTY_TABLE_LEVEL,
+            Constants.PROPERTY_TABLE_MISSION, Constants.PROPERTY_TABLE_INITIAL_ITEMS));
+
+    final Map<Integer, SkillInfo> skillsTable;
+    final Map<Integer, CeleInfo> celebrationsTable;
+    final Map<Integer, LearnInfo> learnTable;
+    final Map<Integer, ItemFree> itemFreeTable;
+    final Map<Integer, ItemInfo> itemTable;
+    final Map<Integer, BonusInfo> bonusTable;
+    final Map<Integer, OptionInfo> optionTable;
+    final Map<Short, LevelInfo> levelTable;
+    final Map<Short, MissionInfo> missionTable;
+    final Map<Short, InitialItem> initialItemsTable;
+
+    final List<Short> missionsList;
+
+    final IntIndex<SkillInfo> skillsById;
+    final IntIndex<CeleInfo> celebrationsById;
+    final IntIndex<LearnInfo> learnById;
+    final IntIndex<ItemFree> itemFreeById;
+    final IntIndex<ItemInfo> itemsById;
+    final IntIndex<BonusInfo> bonusByType;
+    final IntIndex<OptionInfo> optionsById;
+    final IntIndex<LevelInfo> levelsByLevel;
+    final IntIndex<MissionInfo> missionsById;
+    final IntIndex<List<InitialItem>> initialItemsByPosition;
+
+    /** Experience required by each level, sorted in ascending order. */
+    final int[] levelThresholds;
+    /** Level reached with the experience at the same index of levelThresholds. */
+    final short[] thresholdLevels;
+
+    final int experienceLimit;
+    final byte levelLimit;
+
+    /**
+     * Parses every table from the readers returned for each table property.
+     * @throws IllegalStateException if the level table is empty
+     */
+    TableSnapshot(Function<String, TableReader> readers) {
+        itemFreeTable = load(readers.apply(Constants.PROPERTY_TABLE_ITEM_FREE),
+                ItemFree::new, ItemFree::getId);
+        skillsTable = load(readers.apply(Constants.PROPERTY_TABLE_SKILL),
+                SkillInfo::new, SkillInfo::getId);
+        celebrationsTable = load(readers.apply(Constants.PROPERTY_TABLE_CELE),
+                CeleInfo::new, CeleInfo::getId);
+        learnTable = load(readers.apply(Constants.PROPERTY_TABLE_LEARN),
+                LearnInfo::new, LearnInfo::getId);
+        itemTable = load(readers.apply(Constants.PROPERTY_TABLE_ITEM),
+                ItemInfo::new, ItemInfo::getId);
+        bonusTable = load(readers.apply(Constants.PROPERTY_TABLE_BONUS),
+                BonusInfo::new, BonusInfo::getType);
+        optionTable = load(readers.apply(Constants.PROPERTY_TABLE_OPTION),
+                OptionInfo::new, OptionInfo::getId);
+        levelTable = load(readers.apply(Constants.PROPERTY_TABLE_LEVEL),
+                LevelInfo::new, LevelInfo::getLevel);
+        missionTable = load(readers.apply(Constants.PROPERTY_TABLE_MISSION),
+                TableSnapshot::parseEnabledMission, MissionInfo::getId);
+        initialItemsTable = load(readers.apply(Constants.PROPERTY_TABLE_INITIAL_ITEMS),
+                InitialItem::new, InitialItem::getId);
+
+        if (levelTable.isEmpty()) {
+            throw new IllegalStateException("Level table is empty.");
+        }
+
+        missionsList = Collections.unmodifiableList(new ArrayList<>(missionTable.keySet()));
+
+        skillsById = IntIndex.of(skillsTable);
+        celebrationsById = IntIndex.of(celebrationsTable);
+        learnById = IntIndex.of(learnTable);
+        itemFreeById = IntIndex.of(itemFreeTable);
+        itemsById = IntIndex.of(itemTable);
+        bonusByType = IntIndex.of(bonusTable);
+        optionsById = IntIndex.of(optionTable);
+        levelsByLevel = IntIndex.of(levelTable);
+        missionsById = IntIndex.of(missionTable);
+        initialItemsByPosition = IntIndex.of(initialItemsTable.values().stream()
+                .collect(Collectors.groupingBy(InitialItem::getPosition,
+                        Collectors.collectingAndThen(Collectors.toList(),
+                                Collections::unmodifiableList))));
+
+        List<LevelInfo> levels = new ArrayList<>(levelTable.values());
+        levels.sort(Comparator.comparingInt(LevelInfo::getExperience)
+                .thenComparingInt(LevelInfo::getLevel));
+
+        levelThresholds = levels.stream().mapToInt(LevelInfo::getExperience).toArray();
+        thresholdLevels = new short[levels.size()];
+
+        for (int i = 0; i < thresholdLevels.length; i++) {
+            thresholdLevels[i] = levels.get(i).getLevel();
+        }
+
+        LevelInfo lastLevel = levelTable.get(Collections.max(levelTable.keySet()));
+        experienceLimit = lastLevel.getExperience() + lastLevel.getExperienceGap();
+        levelLimit = (byte) lastLevel.getLevel();
+    }
+
+    /** Returns null for disabled missions so they are not added to the table. */
+    private static MissionInfo parseEnabledMission(Row row) throws ParseRowException {
+        boolean enabled = Integer.valueOf(row.columnAt(5)
+                .orElseThrow(ParseRowException::new)) == 1;
+        return enabled ? new MissionInfo(row) : null;
+    }
+
+    private static <K, T> Map<K, T> load(TableReader tableReader, RowParser<T> parser,
+                                         Function<T, K> key) {
+        Map<K, T> table = new HashMap<>();
+
+        try (TableReader reader = tableReader) {
+            Optional<Row> maybeRow;
+            while ((maybeRow = reader.nextRow()).isPresent()) {
+                Row row = maybeRow.get();
+                try {
+                    T element = parser.parse(row);
+
+                    if (element != null) {
+                        table.put(key.apply(element), element);
+                    }
+                } catch (ParseRowException e) {
+                    printParseWarning(e, reader.getTablePath(), row, reader.getIndex());
+                }
+            }
+        }
+
+        return Collections.unmodifiableMap(table);
+    }
+
+    private static void printParseWarning(ParseRowException e, String path, Row row, int index) {
+        Output.prints(Level.WARNING, e.getMessage(),
+                "Table:", path,
+                "Index:", String.valueOf(index),
+                "Column:", row.lastColumnIndex());
+    }
+
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(Row row) throws ParseRowException;
+    }
+}
@@ -125,6 +125,7 @@ public class UserManager {
                 if (Position.isValidNewPosition(currentPosition, position)) {
                     PlayerInfo.setPosition(position, playerId, con);
                     session.getCache().clear();
+                    session.invalidateLobbyListEntry();
 
                     MutableInt statsPoints = new MutableInt(0);
 
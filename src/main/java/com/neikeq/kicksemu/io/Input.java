@@ -1,17 +1,27 @@
 package com.neikeq.kicksemu.io;
 
 import com.neikeq.kicksemu.game.chat.ChatUtils;
+import com.neikeq.kicksemu.game.chat.Flood;
 import com.neikeq.kicksemu.game.lobby.LobbyManager;
+import com.neikeq.kicksemu.game.misc.Moderation;
 import com.neikeq.kicksemu.game.rooms.RoomManager;
 import com.neikeq.kicksemu.game.servers.ServerType;
+import com.neikeq.kicksemu.game.sessions.LoginMetrics;
+import com.neikeq.kicksemu.game.sessions.LoginMetrics.LoginType;
 import com.neikeq.kicksemu.game.sessions.Session;
+import com.neikeq.kicksemu.game.table.TableManager;
 import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.KicksEmu;
 import com.neikeq.kicksemu.config.Configuration;
 import com.neikeq.kicksemu.config.Localization;
 import com.neikeq.kicksemu.io.logging.Logger;
+import com.neikeq.kicksemu.network.packets.in.MessageHandler;
+import com.neikeq.kicksemu.network.packets.in.MessageMetrics;
 import com.neikeq.kicksemu.network.packets.out.ServerMessage;
+import com.neikeq.kicksemu.network.server.NetworkStats;
 import com.neikeq.kicksemu.network.server.ServerManager;
+import com.neikeq.kicksemu.storage.DatabaseExecutor;
+import com.neikeq.kicksemu.utils.HashingExecutor;
 import com.neikeq.kicksemu.game.events.GameEvents;
 import org.quartz.SchedulerException;
 
@@ -120,9 +130,20 @@ public class Input {
         // If this is a game server
         if (serverType != ServerType.MAIN) {
             System.out.println("- Users in lobby: " +
-                    LobbyManager.getMainLobby().getPlayers().size());
+                    LobbyManager.getMainLobby().getPlayersCount());
             System.out.println("- Open rooms: " + RoomManager.roomsCount());
+            System.out.println("- Chat flood: " + Flood.getTotalDroppedMessages() +
+                    " messages dropped, " + Flood.getTotalLocks() + " locks");
         }
+
+        System.out.println("- Database tasks: " + DatabaseExecutor.getActiveThreads() +
+                " active, " + DatabaseExecutor.getQueueDepth() + " queued, " +
+                DatabaseExecutor.getPendingSerialTasks() + " pending in sessions, " +
+                DatabaseExecutor.getRejectedTasks() + " rejected");
+        System.out.println(String.format("- Database wait: %.2f ms avg, %.2f ms max",
+                DatabaseExecutor.getAverageWait(), DatabaseExecutor.getMaxWait()));
+        System.out.println("- Bytes copied: " + NetworkStats.getCopiedBytesPerSecond() +
+                "/s since last stats (" + NetworkStats.getCopiedBytes() + " total)");
     }
 
     /**
@@ -254,6 +275,81 @@ public class Input {
         }
     }
 
+    /**
+     * -- Usage --
+     * "flood playerId"
+     * @param arg arguments
+     */
+    private void handleFlood(String ... arg) {
+        if (arg.length < 2) {
+            Output.println("Expected more arguments. Required: 'flood playerId'");
+            return;
+        }
+
+        try {
+            Optional<Session> maybeTarget = ServerManager.getSession(Integer.valueOf(arg[1]));
+
+            maybeTarget.ifPresent(target -> {
+                Flood flood = target.getChatFlood();
+                Output.println("Messages dropped: " + flood.getDroppedMessages() +
+                        ", locks: " + flood.getLocks() +
+                        (flood.isPlayerLocked() ? " (locked)" : ""));
+            });
+
+            if (!maybeTarget.isPresent()) {
+                Output.println("Target not found.");
+            }
+        } catch (NumberFormatException e) {
+            Output.println("Invalid player id.");
+        }
+    }
+
+    /** Prints the metrics of every message id that was handled at least once. */
+    private void handleMessages() {
+        for (int id = 0; id < MessageHandler.getMaxMessageId(); id++) {
+            if (MessageMetrics.getCount(id) > 0) {
+                System.out.println("- " + MessageMetrics.describe(id));
+            }
+        }
+
+        MessageMetrics.dump();
+    }
+
+    /** Prints the counters and latencies of the logins handled by this server. */
+    private void handleLogins() {
+        for (LoginType type : LoginType.values()) {
+            System.out.println("- " + LoginMetrics.describe(type));
+        }
+
+        System.out.println(String.format("- Throughput: %.2f logins/s since last call",
+                LoginMetrics.getLoginsPerSecond()));
+        System.out.println("- Hashing tasks: " + HashingExecutor.getActiveThreads() +
+                " active, " + HashingExecutor.getQueueDepth() + " queued");
+    }
+
+    /** Reloads the game tables without stopping the server. */
+    private void handleReload() {
+        TableManager.reload();
+    }
+
+    /** Reloads the blacklist and bans from the database. */
+    private void handleReloadBans() {
+        Moderation.reloadAsync().thenAccept(reloaded -> {
+            if (reloaded) {
+                Output.println("Bans reloaded.", Level.INFO);
+            }
+        });
+    }
+
+    /** Compiles the game tables into the binary snapshot loaded at startup. */
+    private void handleCompileTables() {
+        TableManager.compileTables().thenAccept(compiled -> {
+            if (compiled) {
+                Output.println("Tables compiled.", Level.INFO);
+            }
+        });
+    }
+
     private void defineCommands() {
         commands = new TreeMap<>();
         commands.put("save", this::handleSave);
@@ -265,6 +361,12 @@ public class Input {
         commands.put("goldentime", this::handleGoldenTime);
         commands.put("clubtime", this::handleClubTime);
         commands.put("send", this::handleSend);
+        commands.put("flood", this::handleFlood);
+        commands.put("messages", arg -> handleMessages());
+        commands.put("logins", arg -> handleLogins());
+        commands.put("reload", arg -> handleReload());
+        commands.put("compiletables", arg -> handleCompileTables());
+        commands.put("reloadbans", arg -> handleReloadBans());
     }
 
     public Input() {
@@ -27,174 +27,193 @@ import com.neikeq.kicksemu.network.packets.MessageId;
 import com.neikeq.kicksemu.network.server.ServerManager;
 import com.neikeq.kicksemu.network.server.udp.UdpPing;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 public class MessageHandler {
 
-    private static final List<Integer> certifyEvents = new ArrayList<>();
-    private static final Map<Integer, MessageEventHandler> events = new HashMap<>();
+    private static final int MAX_MESSAGE_ID = MessageMetrics.MAX_MESSAGE_ID;
+
+    // Dispatch table indexed by message id
+    private static final MessageEventHandler[] events = new MessageEventHandler[MAX_MESSAGE_ID];
+    private static final boolean[] certifyEvents = new boolean[MAX_MESSAGE_ID];
+
+    private static void define(int messageId, MessageEventHandler event) {
+        events[messageId] = event;
+        MessageMetrics.register(messageId);
+    }
 
     public void defineEvents() {
         // Define global events
-        events.put(MessageId.TCP_PING, UserManager::tcpPing);
-        events.put(MessageId.UPDATE_SETTINGS, UserManager::updateSettings);
+        define(MessageId.TCP_PING, UserManager::tcpPing);
+        define(MessageId.UPDATE_SETTINGS, UserManager::updateSettings);
 
         if (ServerManager.getServerType() == ServerType.MAIN) {
             // Define main events
-            events.put(MessageId.CERTIFY_LOGIN, Authenticator::certifyLogin);
-            events.put(MessageId.INSTANT_LOGIN, Authenticator::instantLogin);
-            events.put(MessageId.INSTANT_EXIT, (s, m) -> UserManager.instantExit(s));
-            events.put(MessageId.CERTIFY_EXIT, (s, m) -> UserManager.certifyExit(s));
-            events.put(MessageId.CHARACTER_INFO, (s, m) -> UserManager.characterInfo(s));
-            events.put(MessageId.CREATE_CHARACTER, CharacterCreator::createCharacter);
-            events.put(MessageId.CHOICE_CHARACTER, UserManager::choiceCharacter);
-            events.put(MessageId.REMOVE_CHARACTER, CharacterRemover::removeCharacter);
-            events.put(MessageId.SERVER_LIST, ServerUtils::serverList);
-            events.put(MessageId.SERVER_INFO, ServerUtils::serverInfo);
-            events.put(MessageId.UPGRADE_CHARACTER, UserManager::upgradeCharacter);
-            events.put(MessageId.UPDATE_TUTORIAL, TutorialManager::updateTutorial);
+            define(MessageId.CERTIFY_LOGIN, Authenticator::certifyLogin);
+            define(MessageId.INSTANT_LOGIN, Authenticator::instantLogin);
+            define(MessageId.INSTANT_EXIT, (s, m) -> UserManager.instantExit(s));
+            define(MessageId.CERTIFY_EXIT, (s, m) -> UserManager.certifyExit(s));
+            define(MessageId.CHARACTER_INFO, (s, m) -> UserManager.characterInfo(s));
+            define(MessageId.CREATE_CHARACTER, CharacterCreator::createCharacter);
+            define(MessageId.CHOICE_CHARACTER, UserManager::choiceCharacter);
+            define(MessageId.REMOVE_CHARACTER, CharacterRemover::removeCharacter);
+            define(MessageId.SERVER_LIST, ServerUtils::serverList);
+            define(MessageId.SERVER_INFO, ServerUtils::serverInfo);
+            define(MessageId.UPGRADE_CHARACTER, UserManager::upgradeCharacter);
+            define(MessageId.UPDATE_TUTORIAL, TutorialManager::updateTutorial);
         } else {
             boolean isClubServer = ServerManager.getServerType() == ServerType.CLUB;
 
             // Define game events
-            events.put(MessageId.GAME_LOGIN, Authenticator::gameLogin);
-            events.put(MessageId.GAME_EXIT, (s, m) -> UserManager.gameExit(s));
-            events.put(MessageId.UDP_CONFIRM, (s, m) -> Authenticator.udpConfirm(s));
-            events.put(MessageId.PLAYER_INFO, (s, m) -> CharacterManager.playerInfo(s));
-            events.put(MessageId.FRIENDS_LIST, FriendsManager::friendsList);
-            events.put(MessageId.FRIEND_REQUEST, FriendsManager::friendRequest);
-            events.put(MessageId.FRIEND_RESPONSE, FriendsManager::friendResponse);
-            events.put(MessageId.DELETE_FRIEND, FriendsManager::deleteFriend);
-            events.put(MessageId.CLUB_INFO, (s, m) -> ClubManager.clubInfo(s));
-            events.put(MessageId.CLUB_MEMBERS, ClubManager::clubMembers);
-            events.put(MessageId.IGNORED_LIST, IgnoredManager::ignoreList);
-            events.put(MessageId.BLOCK_PLAYER, IgnoredManager::blockPlayer);
-            events.put(MessageId.UNBLOCK_PLAYER, IgnoredManager::unblockPlayer);
-            events.put(MessageId.STATUS_MESSAGE, StatusMessage::statusMessage);
-            events.put(MessageId.NEXT_TIP, (s, m) -> ServerUtils.nextTip(s));
-            events.put(MessageId.LOBBY_LIST, LobbyManager::lobbyList);
-            events.put(MessageId.CHAT_MESSAGE, ChatManager::chatMessage);
+            define(MessageId.GAME_LOGIN, Authenticator::gameLogin);
+            define(MessageId.GAME_EXIT, (s, m) -> UserManager.gameExit(s));
+            define(MessageId.UDP_CONFIRM, (s, m) -> Authenticator.udpConfirm(s));
+            define(MessageId.PLAYER_INFO, (s, m) -> CharacterManager.playerInfo(s));
+            define(MessageId.FRIENDS_LIST, FriendsManager::friendsList);
+            define(MessageId.FRIEND_REQUEST, FriendsManager::friendRequest);
+            define(MessageId.FRIEND_RESPONSE, FriendsManager::friendResponse);
+            define(MessageId.DELETE_FRIEND, FriendsManager::deleteFriend);
+            define(MessageId.CLUB_INFO, (s, m) -> ClubManager.clubInfo(s));
+            define(MessageId.CLUB_MEMBERS, ClubManager::clubMembers);
+            define(MessageId.IGNORED_LIST, IgnoredManager::ignoreList);
+            define(MessageId.BLOCK_PLAYER, IgnoredManager::blockPlayer);
+            define(MessageId.UNBLOCK_PLAYER, IgnoredManager::unblockPlayer);
+            define(MessageId.STATUS_MESSAGE, StatusMessage::statusMessage);
+            define(MessageId.NEXT_TIP, (s, m) -> ServerUtils.nextTip(s));
+            define(MessageId.LOBBY_LIST, LobbyManager::lobbyList);
+            define(MessageId.CHAT_MESSAGE, ChatManager::chatMessage);
 
             if (!isClubServer) {
-                events.put(MessageId.ROOM_LIST, RoomMessages::roomList);
-                events.put(MessageId.CREATE_ROOM, RoomMessages::createRoom);
-                events.put(MessageId.JOIN_ROOM, RoomMessages::joinRoom);
-                events.put(MessageId.QUICK_JOIN_ROOM, (s, m) -> RoomMessages.quickJoinRoom(s));
-                events.put(MessageId.LEAVE_ROOM, RoomMessages::leaveRoom);
-                events.put(MessageId.SWAP_TEAM, RoomMessages::swapTeam);
-                events.put(MessageId.ROOM_MAP, RoomMessages::roomMap);
-                events.put(MessageId.ROOM_BALL, RoomMessages::roomBall);
-                events.put(MessageId.ROOM_SETTINGS, RoomMessages::roomSettings);
-                events.put(MessageId.KICK_PLAYER, RoomMessages::kickPlayer);
-                events.put(MessageId.INVITE_PLAYER, RoomMessages::invitePlayer);
-                events.put(MessageId.START_COUNT_DOWN, RoomMessages::startCountDown);
-                events.put(MessageId.HOST_INFO, RoomMessages::hostInfo);
-                events.put(MessageId.COUNT_DOWN, RoomMessages::countDown);
-                events.put(MessageId.CANCEL_COUNT_DOWN, RoomMessages::cancelCountDown);
-                events.put(MessageId.MATCH_LOADING, RoomMessages::matchLoading);
-                events.put(MessageId.PLAYER_READY, RoomMessages::playerReady);
-                events.put(MessageId.CANCEL_LOADING, RoomMessages::cancelLoading);
-                events.put(MessageId.START_MATCH, RoomMessages::startMatch);
-                events.put(MessageId.MATCH_RESULT, RoomMessages::matchResult);
-                events.put(MessageId.MATCH_FORCED_RESULT, RoomMessages::matchForcedResult);
-                events.put(MessageId.ROOM_UNKNOWN1, RoomMessages::unknown1);
-                events.put(MessageId.TO_ROOM_LOBBY, RoomMessages::toRoomLobby);
+                define(MessageId.ROOM_LIST, RoomMessages::roomList);
+                define(MessageId.CREATE_ROOM, RoomMessages::createRoom);
+                define(MessageId.JOIN_ROOM, RoomMessages::joinRoom);
+                define(MessageId.QUICK_JOIN_ROOM, (s, m) -> RoomMessages.quickJoinRoom(s));
+                define(MessageId.LEAVE_ROOM, RoomMessages::leaveRoom);
+                define(MessageId.SWAP_TEAM, RoomMessages::swapTeam);
+                define(MessageId.ROOM_MAP, RoomMessages::roomMap);
+                define(MessageId.ROOM_BALL, RoomMessages::roomBall);
+                define(MessageId.ROOM_SETTINGS, RoomMessages::roomSettings);
+                define(MessageId.KICK_PLAYER, RoomMessages::kickPlayer);
+                define(MessageId.INVITE_PLAYER, RoomMessages::invitePlayer);
+                define(MessageId.START_COUNT_DOWN, RoomMessages::startCountDown);
+                define(MessageId.HOST_INFO, RoomMessages::hostInfo);
+                define(MessageId.COUNT_DOWN, RoomMessages::countDown);
+                define(MessageId.CANCEL_COUNT_DOWN, RoomMessages::cancelCountDown);
+                define(MessageId.MATCH_LOADING, RoomMessages::matchLoading);
+                define(MessageId.PLAYER_READY, RoomMessages::playerReady);
+                define(MessageId.CANCEL_LOADING, RoomMessages::cancelLoading);
+                define(MessageId.START_MATCH, RoomMessages::startMatch);
+                define(MessageId.MATCH_RESULT, RoomMessages::matchResult);
+                define(MessageId.MATCH_FORCED_RESULT, RoomMessages::matchForcedResult);
+                define(MessageId.ROOM_UNKNOWN1, RoomMessages::unknown1);
+                define(MessageId.TO_ROOM_LOBBY, RoomMessages::toRoomLobby);
             } else {
-                events.put(MessageId.LEAVE_ROOM, ChallengeRoomMessages::leaveRoom);
-                events.put(MessageId.ROOM_MAP, ChallengeRoomMessages::roomMap);
-                events.put(MessageId.ROOM_BALL, ChallengeRoomMessages::roomBall);
-                events.put(MessageId.START_COUNT_DOWN, ChallengeRoomMessages::startCountDown);
-                events.put(MessageId.HOST_INFO, ChallengeRoomMessages::hostInfo);
-                events.put(MessageId.COUNT_DOWN, ChallengeRoomMessages::countDown);
-                events.put(MessageId.CANCEL_COUNT_DOWN, ChallengeRoomMessages::cancelCountDown);
-                events.put(MessageId.MATCH_LOADING, ChallengeRoomMessages::matchLoading);
-                events.put(MessageId.PLAYER_READY, ChallengeRoomMessages::playerReady);
-                events.put(MessageId.CANCEL_LOADING, ChallengeRoomMessages::cancelLoading);
-                events.put(MessageId.START_MATCH, ChallengeRoomMessages::startMatch);
-                events.put(MessageId.MATCH_RESULT, ChallengeRoomMessages::matchResult);
-                events.put(MessageId.MATCH_FORCED_RESULT, ChallengeRoomMessages::matchForcedResult);
-                events.put(MessageId.ROOM_UNKNOWN1, ChallengeRoomMessages::unknown1);
-                events.put(MessageId.TO_ROOM_LOBBY, ChallengeRoomMessages::toRoomLobby);
-
-                events.put(MessageId.CLUB_ROOM_LIST, ClubRoomMessages::roomList);
-                events.put(MessageId.CLUB_CREATE_ROOM, ClubRoomMessages::createRoom);
-                events.put(MessageId.CLUB_JOIN_ROOM, ClubRoomMessages::joinRoom);
-                events.put(MessageId.CLUB_LEAVE_ROOM, ClubRoomMessages::leaveRoom);
-                events.put(MessageId.CLUB_QUICK_JOIN, (s, m) -> ClubRoomMessages.quickJoinRoom(s));
-                events.put(MessageId.CLUB_KICK_PLAYER, ClubRoomMessages::kickPlayer);
-                events.put(MessageId.CLUB_ROOM_SETTINGS, ClubRoomMessages::roomSettings);
-                events.put(MessageId.CLUB_REGISTER_TEAM, ClubRoomMessages::registerTeam);
-                events.put(MessageId.CLUB_UNREGISTER_TEAM, ClubRoomMessages::unregisterTeam);
-                events.put(MessageId.CLUB_CHALLENGE_TEAM, ClubRoomMessages::challengeTeam);
-                events.put(MessageId.CLUB_CHALLENGE_RESPONSE, ClubRoomMessages::challengeResponse);
-                events.put(MessageId.CLUB_CANCEL_CHALLENGE, (s, m) -> ClubRoomMessages.cancelChallenge(s));
-                events.put(MessageId.CLUB_TEAMS_LIST, ClubRoomMessages::teamList);
-                events.put(MessageId.CLUB_INVITE_PLAYER, ClubRoomMessages::invitePlayer);
+                define(MessageId.LEAVE_ROOM, ChallengeRoomMessages::leaveRoom);
+                define(MessageId.ROOM_MAP, ChallengeRoomMessages::roomMap);
+                define(MessageId.ROOM_BALL, ChallengeRoomMessages::roomBall);
+                define(MessageId.START_COUNT_DOWN, ChallengeRoomMessages::startCountDown);
+                define(MessageId.HOST_INFO, ChallengeRoomMessages::hostInfo);
+                define(MessageId.COUNT_DOWN, ChallengeRoomMessages::countDown);
+                define(MessageId.CANCEL_COUNT_DOWN, ChallengeRoomMessages::cancelCountDown);
+                define(MessageId.MATCH_LOADING, ChallengeRoomMessages::matchLoading);
+                define(MessageId.PLAYER_READY, ChallengeRoomMessages::playerReady);
+                define(MessageId.CANCEL_LOADING, ChallengeRoomMessages::cancelLoading);
+                define(MessageId.START_MATCH, ChallengeRoomMessages::startMatch);
+                define(MessageId.MATCH_RESULT, ChallengeRoomMessages::matchResult);
+                define(MessageId.MATCH_FORCED_RESULT, ChallengeRoomMessages::matchForcedResult);
+                define(MessageId.ROOM_UNKNOWN1, ChallengeRoomMessages::unknown1);
+                define(MessageId.TO_ROOM_LOBBY, ChallengeRoomMessages::toRoomLobby);
+
+                define(MessageId.CLUB_ROOM_LIST, ClubRoomMessages::roomList);
+                define(MessageId.CLUB_CREATE_ROOM, ClubRoomMessages::createRoom);
+                define(MessageId.CLUB_JOIN_ROOM, ClubRoomMessages::joinRoom);
+                define(MessageId.CLUB_LEAVE_ROOM, ClubRoomMessages::leaveRoom);
+                define(MessageId.CLUB_QUICK_JOIN, (s, m) -> ClubRoomMessages.quickJoinRoom(s));
+                define(MessageId.CLUB_KICK_PLAYER, ClubRoomMessages::kickPlayer);
+                define(MessageId.CLUB_ROOM_SETTINGS, ClubRoomMessages::roomSettings);
+                define(MessageId.CLUB_REGISTER_TEAM, ClubRoomMessages::registerTeam);
+                define(MessageId.CLUB_UNREGISTER_TEAM, ClubRoomMessages::unregisterTeam);
+                define(MessageId.CLUB_CHALLENGE_TEAM, ClubRoomMessages::challengeTeam);
+                define(MessageId.CLUB_CHALLENGE_RESPONSE, ClubRoomMessages::challengeResponse);
+                define(MessageId.CLUB_CANCEL_CHALLENGE, (s, m) -> ClubRoomMessages.cancelChallenge(s));
+                define(MessageId.CLUB_TEAMS_LIST, ClubRoomMessages::teamList);
+                define(MessageId.CLUB_INVITE_PLAYER, ClubRoomMessages::invitePlayer);
             }
 
-            events.put(MessageId.PURCHASE_ITEM, Shop::purchaseItem);
-            events.put(MessageId.RESELL_ITEM, InventoryManager::resellItem);
-            events.put(MessageId.ACTIVATE_ITEM, InventoryManager::activateItem);
-            events.put(MessageId.DEACTIVATE_ITEM, InventoryManager::deactivateItem);
-            events.put(MessageId.MERGE_ITEM, InventoryManager::mergeItem);
-            events.put(MessageId.PURCHASE_LEARN, Shop::purchaseLearn);
-            events.put(MessageId.PURCHASE_SKILL, Shop::purchaseSkill);
-            events.put(MessageId.ACTIVATE_SKILL, InventoryManager::activateSkill);
-            events.put(MessageId.DEACTIVATE_SKILL, InventoryManager::deactivateSkill);
-            events.put(MessageId.PURCHASE_CELE, Shop::purchaseCele);
-            events.put(MessageId.ACTIVATE_CELE, InventoryManager::activateCele);
-            events.put(MessageId.DEACTIVATE_CELE, InventoryManager::deactivateCele);
-            events.put(MessageId.PURCHASE_CLUB_ITEM, ClubShop::purchaseClubItem);
-            events.put(MessageId.SET_CLUB_UNIFORM, Shop::setClubUniform);
-            events.put(MessageId.WEAR_UNIFORM, InventoryManager::wearUniform);
-            events.put(MessageId.PLAYER_DETAILS, CharacterManager::playerDetails);
-            events.put(MessageId.ADD_STATS_POINTS, CharacterManager::addStatsPoints);
-            events.put(MessageId.UDP_PING, (s, m) -> UdpPing.udpPing(s));
-            events.put(MessageId.UDP_AUTHENTICATE, (s, m) -> Authenticator.udpAuthentication(s));
+            define(MessageId.PURCHASE_ITEM, Shop::purchaseItem);
+            define(MessageId.RESELL_ITEM, InventoryManager::resellItem);
+            define(MessageId.ACTIVATE_ITEM, InventoryManager::activateItem);
+            define(MessageId.DEACTIVATE_ITEM, InventoryManager::deactivateItem);
+            define(MessageId.MERGE_ITEM, InventoryManager::mergeItem);
+            define(MessageId.PURCHASE_LEARN, Shop::purchaseLearn);
+            define(MessageId.PURCHASE_SKILL, Shop::purchaseSkill);
+            define(MessageId.ACTIVATE_SKILL, InventoryManager::activateSkill);
+            define(MessageId.DEACTIVATE_SKILL, InventoryManager::deactivateSkill);
+            define(MessageId.PURCHASE_CELE, Shop::purchaseCele);
+            define(MessageId.ACTIVATE_CELE, InventoryManager::activateCele);
+            define(MessageId.DEACTIVATE_CELE, InventoryManager::deactivateCele);
+            define(MessageId.PURCHASE_CLUB_ITEM, ClubShop::purchaseClubItem);
+            define(MessageId.SET_CLUB_UNIFORM, Shop::setClubUniform);
+            define(MessageId.WEAR_UNIFORM, InventoryManager::wearUniform);
+            define(MessageId.PLAYER_DETAILS, CharacterManager::playerDetails);
+            define(MessageId.ADD_STATS_POINTS, CharacterManager::addStatsPoints);
+            define(MessageId.UDP_PING, (s, m) -> UdpPing.udpPing(s));
+            define(MessageId.UDP_AUTHENTICATE, (s, m) -> Authenticator.udpAuthentication(s));
 
             if (MatchBroadcaster.isBroadcastEnabled()) {
                 if (isClubServer) {
-                    events.put(MessageId.UDP_GAME_1, MatchBroadcaster::udpChallengeGame);
-                    events.put(MessageId.UDP_GAME_2, MatchBroadcaster::udpChallengeGame);
-                    events.put(MessageId.UDP_GAME_3, MatchBroadcaster::udpChallengeGame);
-                    events.put(MessageId.UDP_GAME_4, MatchBroadcaster::udpChallengeGame);
-                    events.put(MessageId.UDP_GAME_5, MatchBroadcaster::udpChallengeGame);
+                    define(MessageId.UDP_GAME_1, MatchBroadcaster::udpChallengeGame);
+                    define(MessageId.UDP_GAME_2, MatchBroadcaster::udpChallengeGame);
+                    define(MessageId.UDP_GAME_3, MatchBroadcaster::udpChallengeGame);
+                    define(MessageId.UDP_GAME_4, MatchBroadcaster::udpChallengeGame);
+                    define(MessageId.UDP_GAME_5, MatchBroadcaster::udpChallengeGame);
                 } else {
-                    events.put(MessageId.UDP_GAME_1, MatchBroadcaster::udpGame);
-                    events.put(MessageId.UDP_GAME_2, MatchBroadcaster::udpGame);
-                    events.put(MessageId.UDP_GAME_3, MatchBroadcaster::udpGame);
-                    events.put(MessageId.UDP_GAME_4, MatchBroadcaster::udpGame);
-                    events.put(MessageId.UDP_GAME_5, MatchBroadcaster::udpGame);
+                    define(MessageId.UDP_GAME_1, MatchBroadcaster::udpGame);
+                    define(MessageId.UDP_GAME_2, MatchBroadcaster::udpGame);
+                    define(MessageId.UDP_GAME_3, MatchBroadcaster::udpGame);
+                    define(MessageId.UDP_GAME_4, MatchBroadcaster::udpGame);
+                    define(MessageId.UDP_GAME_5, MatchBroadcaster::udpGame);
                 }
             }
 
             if (Configuration.getBoolean("game.proxy.enabled")) {
-                events.put(MessageId.PROXY_UPDATE_PORT, (s, m) -> s.setUdpPort(m.readShort()));
+                define(MessageId.PROXY_UPDATE_PORT, (s, m) -> s.setUdpPort(m.readShort()));
             }
         }
     }
 
     public void defineCertifyEvents() {
         if (ServerManager.getServerType() == ServerType.MAIN) {
-            certifyEvents.add(MessageId.CERTIFY_LOGIN);
-            certifyEvents.add(MessageId.INSTANT_LOGIN);
+            certifyEvents[MessageId.CERTIFY_LOGIN] = true;
+            certifyEvents[MessageId.INSTANT_LOGIN] = true;
         } else {
-            certifyEvents.add(MessageId.GAME_LOGIN);
+            certifyEvents[MessageId.GAME_LOGIN] = true;
         }
     }
 
+    public static int getMaxMessageId() {
+        return MAX_MESSAGE_ID;
+    }
+
     public void handle(Session session, ClientMessage msg)
             throws UndefinedMessageException {
         int messageId = msg.getMessageId();
+        boolean validId = (messageId >= 0) && (messageId < MAX_MESSAGE_ID);
 
-        if (session.isAuthenticated() || certifyEvents.contains(messageId)) {
-            MessageEventHandler event = events.get(msg.getMessageId());
+        if (session.isAuthenticated() || (validId && certifyEvents[messageId])) {
+            MessageEventHandler event = validId ? events[messageId] : null;
 
             if (event != null) {
-                event.handle(session, msg);
+                long startTime = System.nanoTime();
+                boolean failed = true;
+
+                MessageMetrics.onHandleStarted(messageId);
+
+                try {
+                    event.handle(session, msg);
+                    failed = false;
+                } finally {
+                    MessageMetrics.onHandleFinished(messageId,
+                            System.nanoTime() - startTime, failed);
+                }
             } else {
                 throw new UndefinedMessageException("Received unknown message (" +
                         messageId + ")");
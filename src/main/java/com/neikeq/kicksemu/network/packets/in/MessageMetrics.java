@@ -0,0 +1,148 @@
+package com.neikeq.kicksemu.network.packets.in;
+
+import com.neikeq.kicksemu.config.Configuration;
+import com.neikeq.kicksemu.config.Constants;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+import com.neikeq.kicksemu.utils.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms of the handled messages, indexed by message id.<br>
+ * Periodically dumped to a file in the logs directory.
+ */
+public class MessageMetrics {
+
+    /** Must be greater than the highest message id. */
+    static final int MAX_MESSAGE_ID = 12000;
+
+    private static final String DUMP_FILE = Constants.LOGS_DIR + "metrics.txt";
+
+    private static final AtomicLongArray counts = new AtomicLongArray(MAX_MESSAGE_ID);
+    private static final AtomicLongArray nanos = new AtomicLongArray(MAX_MESSAGE_ID);
+    private static final AtomicLongArray errors = new AtomicLongArray(MAX_MESSAGE_ID);
+    private static final AtomicLongArray databaseCalls = new AtomicLongArray(MAX_MESSAGE_ID);
+    private static final LatencyHistogram[] latencies = new LatencyHistogram[MAX_MESSAGE_ID];
+
+    /** Id of the message being handled by the current thread, or -1. */
+    private static final ThreadLocal<int[]> currentMessage = ThreadLocal.withInitial(() ->
+            new int[] { -1 });
+
+    private static ScheduledExecutorService dumpScheduler;
+
+    public static void initialize() {
+        int interval = Configuration.getInt("metrics.dump.interval");
+
+        if (interval > 0) {
+            dumpScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            dumpScheduler.scheduleWithFixedDelay(MessageMetrics::dump,
+                    interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Creates the histogram of a message id when its handler is defined. */
+    static void register(int messageId) {
+        if (latencies[messageId] == null) {
+            latencies[messageId] = new LatencyHistogram();
+        }
+    }
+
+    static void onHandleStarted(int messageId) {
+        currentMessage.get()[0] = messageId;
+    }
+
+    static void onHandleFinished(int messageId, long elapsedNanos, boolean failed) {
+        currentMessage.get()[0] = -1;
+
+        counts.incrementAndGet(messageId);
+        nanos.addAndGet(messageId, elapsedNanos);
+        latencies[messageId].recordNanos(elapsedNanos);
+
+        if (failed) {
+            errors.incrementAndGet(messageId);
+        }
+    }
+
+    /** Attributes a database statement to the message handled by the current thread. */
+    public static void onDatabaseCall() {
+        int messageId = currentMessage.get()[0];
+
+        if (messageId >= 0) {
+            databaseCalls.incrementAndGet(messageId);
+        }
+    }
+
+    public static long getCount(int messageId) {
+        return counts.get(messageId);
+    }
+
+    /** Total time in nanoseconds spent handling messages with the specified id. */
+    public static long getTotalNanos(int messageId) {
+        return nanos.get(messageId);
+    }
+
+    /** Number of messages with the specified id whose handler threw an exception. */
+    public static long getErrors(int messageId) {
+        return errors.get(messageId);
+    }
+
+    public static long getDatabaseCalls(int messageId) {
+        return databaseCalls.get(messageId);
+    }
+
+    /** Describes the counters and latency percentiles of a message id. */
+    public static String describe(int messageId) {
+        long count = getCount(messageId);
+        LatencyHistogram latency = latencies[messageId];
+
+        return String.format("%d: %d handled, %d errors, %.2f db calls avg, " +
+                        "latency us p50 %d p99 %d p99.9 %d max %d",
+                messageId, count, getErrors(messageId),
+                (count > 0) ? getDatabaseCalls(messageId) / (double) count : 0,
+                latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                latency.getValueAtPercentile(99.9), latency.getMax());
+    }
+
+    public static void dump() {
+        File file = new File(DUMP_FILE);
+
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("# Message metrics at " + System.currentTimeMillis());
+
+            for (int id = 0; id < MAX_MESSAGE_ID; id++) {
+                if (getCount(id) > 0) {
+                    writer.println(describe(id));
+                }
+            }
+        } catch (IOException e) {
+            Output.println("Exception when dumping message metrics: " +
+                    e.getMessage(), Level.DEBUG);
+        }
+    }
+
+    public static void shutdown() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdown();
+        }
+    }
+
+    private MessageMetrics() {
+        throw new AssertionError();
+    }
+}
@@ -1,6 +1,7 @@
 package com.neikeq.kicksemu.network.packets.out;
 
 import com.neikeq.kicksemu.game.characters.types.PlayerHistory;
+import com.neikeq.kicksemu.game.characters.CharacterCache;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.clubs.Uniform;
 import com.neikeq.kicksemu.game.clubs.UniformType;
@@ -41,9 +42,11 @@ import java.net.InetAddress;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class MessageBuilder {
     
@@ -828,6 +831,30 @@ public class MessageBuilder {
         msg.writeShort((short) 0);
         msg.writeByte(page);
 
+        // Players in the lobby are connected to this server, so their entries are already encoded
+        List<Session> sessions = Arrays.stream(players)
+                .map(ServerManager::getSession)
+                .filter(Optional::isPresent).map(Optional::get)
+                .collect(Collectors.toList());
+
+        if (sessions.size() == players.length) {
+            sessions.forEach(session -> msg.writeBytes(session.getLobbyListEntry()));
+            return msg;
+        }
+
+        if (Arrays.stream(players).allMatch(id -> CharacterCache.get(id).isPresent())) {
+            for (int playerId : players) {
+                msg.writeBool(true);
+                msg.writeInt(playerId);
+                msg.writeString(PlayerInfo.getName(playerId), 15);
+                msg.writeShort(PlayerInfo.getLevel(playerId));
+                msg.writeByte((byte) PlayerInfo.getPosition(playerId));
+                msg.writeString(PlayerInfo.getStatusMessage(playerId), 35);
+            }
+
+            return msg;
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             String array = Strings.repeatAndSplit("?", ", ", players.length);
 
@@ -1,6 +1,8 @@
 package com.neikeq.kicksemu.network.packets.out;
 
 import com.neikeq.kicksemu.game.characters.types.PlayerHistory;
+import com.neikeq.kicksemu.game.characters.CharacterCache;
+import com.neikeq.kicksemu.game.characters.CharacterRecord;
 import com.neikeq.kicksemu.game.characters.PlayerInfo;
 import com.neikeq.kicksemu.game.characters.types.PlayerRanking;
 import com.neikeq.kicksemu.game.characters.types.PlayerStats;
@@ -28,6 +30,7 @@ import com.neikeq.kicksemu.storage.ConnectionRef;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Optional;
 
 class MessageUtils {
 
@@ -48,6 +51,21 @@ class MessageUtils {
     }
 
     public static void appendCharacterInfo(int playerId, ServerMessage msg, ConnectionRef ... con) {
+        Optional<CharacterRecord> record = CharacterCache.get(playerId);
+
+        if (record.isPresent()) {
+            CharacterRecord r = record.get();
+            msg.writeShort(r.getShort("level"));
+            msg.writeInt(r.getInt("experience"));
+            msg.writeShort(r.getShort("stats_points"));
+            msg.writeInt(UserInfo.getCash(r.getInt("owner"), con));
+            msg.writeInt(r.getInt("points"));
+            msg.writeZeros(8);
+            msg.writeShort(r.getShort("tickets_kash"));
+            msg.writeShort(r.getShort("tickets_points"));
+            return;
+        }
+
         try (ConnectionRef connection = ConnectionRef.ref(con)) {
             final String query = "SELECT level, experience, stats_points, owner, points, " +
                     "tickets_kash, tickets_points FROM characters WHERE id = ? LIMIT 1;";
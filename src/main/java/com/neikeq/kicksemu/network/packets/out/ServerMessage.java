@@ -4,13 +4,15 @@ import com.neikeq.kicksemu.config.Constants;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 public class ServerMessage {
 
-    private final ByteBuf body = ByteBufAllocator.DEFAULT.buffer().order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuf body = PooledByteBufAllocator.DEFAULT.directBuffer()
+            .order(ByteOrder.LITTLE_ENDIAN);
 
     public ServerMessage withResult(short result) {
         writeShort(result);
@@ -60,6 +62,11 @@ public class ServerMessage {
         }
     }
 
+    /** Writes the bytes as they are, used to copy pre-encoded fragments. */
+    public void writeBytes(byte[] value) {
+        body.writeBytes(value);
+    }
+
     public void writeString(String value, int length) {
         if (value != null) {
             writeBytes(value.getBytes(Charset.forName("windows-1252")), length);
@@ -100,6 +107,27 @@ public class ServerMessage {
 
         return body;
     }
+
+    /** Allocates the header of the message addressed to the specified target. */
+    public ByteBuf getHeader(int targetId, ByteBufAllocator allocator) {
+        ByteBuf header = allocator.directBuffer(Constants.HEADER_SIZE, Constants.HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        header.writeBytes(body, 0, Constants.HEADER_SIZE);
+        header.setShort(Constants.BODY_SIZE_INDEX, (short) getBodySize());
+        header.setInt(Constants.TARGET_ID_INDEX, targetId);
+
+        return header;
+    }
+
+    /** Returns a retained slice of the message without header, shared by every target. */
+    public ByteBuf getRetainedBody() {
+        return body.slice(Constants.HEADER_SIZE, getBodySize()).retain();
+    }
+
+    private int getBodySize() {
+        return body.readableBytes() - Constants.HEADER_SIZE;
+    }
     
     public ServerMessage(int messageId) {
         // Allocate space for the header
@@ -0,0 +1,39 @@
+package com.neikeq.kicksemu.network.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counters of the work done by the network layer. */
+public class NetworkStats {
+
+    private static final AtomicLong copiedBytes = new AtomicLong();
+
+    private static long lastSampleTime = System.nanoTime();
+    private static long lastSampleBytes;
+
+    /** Registers bytes that had to be copied between buffers. */
+    public static void addCopiedBytes(long bytes) {
+        copiedBytes.addAndGet(bytes);
+    }
+
+    public static long getCopiedBytes() {
+        return copiedBytes.get();
+    }
+
+    /** Bytes copied per second since the last time this method was called. */
+    public static synchronized long getCopiedBytesPerSecond() {
+        long now = System.nanoTime();
+        long bytes = copiedBytes.get();
+
+        long elapsed = now - lastSampleTime;
+        long rate = (elapsed > 0) ? ((bytes - lastSampleBytes) * 1000000000L) / elapsed : 0;
+
+        lastSampleTime = now;
+        lastSampleBytes = bytes;
+
+        return rate;
+    }
+
+    private NetworkStats() {
+        throw new AssertionError();
+    }
+}
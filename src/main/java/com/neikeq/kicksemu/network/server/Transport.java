@@ -0,0 +1,55 @@
+package com.neikeq.kicksemu.network.server;
+
+import com.neikeq.kicksemu.config.Configuration;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+/**
+ * Selects the channel implementation used by the servers.<br>
+ * The native epoll transport is used if it is enabled in the configuration
+ * and available in the system. Otherwise NIO is used.
+ */
+public class Transport {
+
+    private static Boolean epoll;
+
+    public static synchronized boolean isEpoll() {
+        if (epoll == null) {
+            epoll = Configuration.getBoolean("net.epoll") && Epoll.isAvailable();
+
+            if (Configuration.getBoolean("net.epoll") && !epoll) {
+                Output.println("Native epoll transport is not available: " +
+                        Epoll.unavailabilityCause().getMessage(), Level.WARNING);
+            }
+        }
+
+        return epoll;
+    }
+
+    /** @param threads number of threads, or 0 to use the Netty default */
+    public static EventLoopGroup newEventLoopGroup(int threads) {
+        return isEpoll() ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+    }
+
+    public static Class<? extends ServerChannel> serverChannel() {
+        return isEpoll() ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public static Class<? extends Channel> datagramChannel() {
+        return isEpoll() ? EpollDatagramChannel.class : NioDatagramChannel.class;
+    }
+
+    private Transport() {
+        throw new AssertionError();
+    }
+}
@@ -3,6 +3,7 @@ package com.neikeq.kicksemu.network.server.tcp;
 import com.neikeq.kicksemu.io.Output;
 import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.network.packets.in.ClientMessage;
+import com.neikeq.kicksemu.game.sessions.Session;
 import com.neikeq.kicksemu.game.sessions.SessionManager;
 
 import com.neikeq.kicksemu.network.packets.in.MessageHandler;
@@ -17,25 +18,44 @@ class ClientHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         ByteBuf buf = (ByteBuf)msg;
+        Session session = SessionManager.getSession(ctx.channel());
 
-        try {
-            ClientMessage message = new ClientMessage(buf);
-
-            // Handle the incoming message
-            MessageHandler messageHandler = ServerManager.getMessageHandler();
-            messageHandler.handle(SessionManager.getSession(ctx.channel()), message);
-
-        } catch (UndefinedMessageException ume) {
-            Output.println(ume.getMessage() + " from: " +
-                    ctx.channel().remoteAddress(), Level.DEBUG);
-        } finally {
+        if (session == null) {
             buf.release();
+            return;
         }
+
+        // Handlers may block on the database, so they run in the session queue
+        session.getMessageQueue().execute(() -> {
+            try {
+                ClientMessage message = new ClientMessage(buf);
+
+                // Handle the incoming message
+                MessageHandler messageHandler = ServerManager.getMessageHandler();
+                messageHandler.handle(session, message);
+
+            } catch (UndefinedMessageException ume) {
+                Output.println(ume.getMessage() + " from: " +
+                        ctx.channel().remoteAddress(), Level.DEBUG);
+            } catch (Exception e) {
+                // Closes the session as if the handler ran in the event loop
+                ctx.pipeline().fireExceptionCaught(e);
+            } finally {
+                buf.release();
+            }
+        });
     }
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
-        SessionManager.getSession(ctx.channel()).flush();
+        Session session = SessionManager.getSession(ctx.channel());
+
+        if (session == null) {
+            return;
+        }
+
+        // Write the responses back once the queued messages were handled
+        session.getMessageQueue().execute(() -> ctx.channel().eventLoop().execute(session::flush));
     }
     
     @Override
@@ -45,13 +65,22 @@ class ClientHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        SessionManager.removeSession(ctx.channel());
+        removeSession(ctx);
     }
     
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        SessionManager.removeSession(ctx.channel());
+        removeSession(ctx);
 
         Output.println("Tcp client exception: " + cause.getMessage(), Level.DEBUG);
     }
+
+    /** Closes the session after its pending messages were handled. */
+    private void removeSession(ChannelHandlerContext ctx) {
+        Session session = SessionManager.getSession(ctx.channel());
+
+        if (session != null) {
+            session.getMessageQueue().execute(() -> SessionManager.removeSession(ctx.channel()));
+        }
+    }
 }
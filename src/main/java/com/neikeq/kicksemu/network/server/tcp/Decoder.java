@@ -31,7 +31,8 @@ class Decoder extends ByteToMessageDecoder {
             in.resetReaderIndex();
 
             if (length >= totalSize) {
-                out.add(Cryptography.decrypt(in.readBytes(totalSize)));
+                // The frame is decrypted in place and passed on without copying it
+                out.add(Cryptography.decrypt(in.readSlice(totalSize).retain()));
             }
         }
     }
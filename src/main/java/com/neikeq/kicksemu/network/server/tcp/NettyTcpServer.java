@@ -1,14 +1,15 @@
 package com.neikeq.kicksemu.network.server.tcp;
 
+import com.neikeq.kicksemu.config.Configuration;
 import com.neikeq.kicksemu.config.Localization;
 import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.network.server.Transport;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import java.net.BindException;
 
@@ -16,8 +17,10 @@ public class NettyTcpServer {
 
     private final int port;
     
-    private final EventLoopGroup bossGroup = new NioEventLoopGroup();
-    private final EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private final EventLoopGroup bossGroup =
+            Transport.newEventLoopGroup(Configuration.getInt("net.threads.boss"));
+    private final EventLoopGroup workerGroup =
+            Transport.newEventLoopGroup(Configuration.getInt("net.threads.worker"));
 
     private final ServerBootstrap bootstrap = new ServerBootstrap();
 
@@ -31,10 +34,11 @@ public class NettyTcpServer {
 
     private void initBootstrap() {
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(Transport.serverChannel())
                 .childHandler(new Initializer())
-                .option(ChannelOption.SO_BACKLOG, 50)
-                .childOption(ChannelOption.SO_KEEPALIVE, true);
+                .option(ChannelOption.SO_BACKLOG, Configuration.getInt("net.backlog"))
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
     }
 
     public void start() throws InterruptedException, BindException {
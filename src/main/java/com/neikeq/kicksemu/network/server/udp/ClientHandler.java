@@ -5,11 +5,14 @@ import com.neikeq.kicksemu.io.logging.Level;
 import com.neikeq.kicksemu.network.packets.in.ClientMessage;
 import com.neikeq.kicksemu.network.packets.in.UndefinedMessageException;
 import com.neikeq.kicksemu.network.server.ServerManager;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
 import io.netty.channel.socket.DatagramPacket;
 
+/** Stateless, so a single instance is shared by every channel bound to the port. */
+@Sharable
 class ClientHandler extends SimpleChannelInboundHandler<DatagramPacket> {
 
     @Override
@@ -22,6 +25,7 @@ class ClientHandler extends SimpleChannelInboundHandler<DatagramPacket> {
                 .filter(s -> s.getRemoteAddress().equals(packet.sender().getAddress()))
                 .ifPresent(session -> {
                     session.setUdpPort(packet.sender().getPort());
+                    session.setUdpChannel(ctx.channel());
 
                     try {
                         // Handle the incoming message
@@ -35,6 +39,7 @@ class ClientHandler extends SimpleChannelInboundHandler<DatagramPacket> {
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
+        // Relayed packets are written to the channel which received them
         ctx.flush();
     }
     
@@ -1,25 +1,33 @@
 package com.neikeq.kicksemu.network.server.udp;
 
+import com.neikeq.kicksemu.config.Configuration;
 import com.neikeq.kicksemu.config.Localization;
 import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.network.server.Transport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.epoll.EpollChannelOption;
 
 import java.net.BindException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class NettyUdpServer {
 
     private final int port;
 
-    private final EventLoopGroup group = new NioEventLoopGroup();
+    // With epoll, each thread reads the port from its own channel bound with SO_REUSEPORT
+    private final int threads = Transport.isEpoll() ?
+            Math.max(1, Configuration.getInt("net.threads.udp")) : 1;
+
+    private final EventLoopGroup group = Transport.newEventLoopGroup(threads);
 
     private final Bootstrap bootstrap = new Bootstrap();
 
     private ChannelFuture channelFuture;
+    private final List<ChannelFuture> extraChannels = new ArrayList<>();
 
     public NettyUdpServer(int port) {
         this.port = port;
@@ -29,18 +37,28 @@ public class NettyUdpServer {
 
     private void initBootstrap() {
         bootstrap.group(group)
-                .channel(NioDatagramChannel.class)
+                .channel(Transport.datagramChannel())
                 .option(ChannelOption.SO_BROADCAST, true)
                 .handler(new ClientHandler());
+
+        if (Transport.isEpoll()) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
     }
 
     public void start() throws InterruptedException, BindException {
         Output.println(Localization.get("net.bind.udp", String.valueOf(port)));
 
         channelFuture = bootstrap.bind(port).sync();
+
+        for (int i = 1; i < threads; i++) {
+            extraChannels.add(bootstrap.bind(port).sync());
+        }
     }
     
     public void close() {
+        extraChannels.forEach(future -> future.channel().close().awaitUninterruptibly());
+
         if (getChannelFuture() != null) {
             getChannelFuture().channel().close();
             getChannelFuture().awaitUninterruptibly();
@@ -1,5 +1,7 @@
 package com.neikeq.kicksemu.storage;
 
+import com.neikeq.kicksemu.network.packets.in.MessageMetrics;
+
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.CallableStatement;
@@ -52,16 +54,19 @@ public class ConnectionRef implements Connection {
 
     @Override
     public Statement createStatement() throws SQLException {
+        MessageMetrics.onDatabaseCall();
         return connection.createStatement();
     }
 
     @Override
     public PreparedStatement prepareStatement(String s) throws SQLException {
+        MessageMetrics.onDatabaseCall();
         return connection.prepareStatement(s);
     }
 
     @Override
     public CallableStatement prepareCall(String s) throws SQLException {
+        MessageMetrics.onDatabaseCall();
         return connection.prepareCall(s);
     }
 
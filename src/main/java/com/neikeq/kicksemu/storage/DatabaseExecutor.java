@@ -0,0 +1,225 @@
+package com.neikeq.kicksemu.storage;
+
+import com.neikeq.kicksemu.config.Configuration;
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pool for work that blocks on the database.<br>
+ * Keeps JDBC calls out of the Netty event loops. When the queue is full the task
+ * is rejected, it never runs in the submitting thread since that may be an event loop.
+ */
+public class DatabaseExecutor {
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    // Gauges
+    private static final AtomicLong completedTasks = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+    private static final AtomicInteger pendingSerialTasks = new AtomicInteger();
+    private static final AtomicLong rejectedTasks = new AtomicLong();
+
+    /** Milliseconds before a rejected session queue tries again to run in the pool. */
+    private static final long RETRY_DELAY = 100;
+
+    private static ThreadPoolExecutor pool;
+    private static ScheduledExecutorService retryScheduler;
+
+    public static void initialize() {
+        int threads = Configuration.getInt("mysql.executor.threads");
+        int queueSize = Configuration.getInt("mysql.executor.queue");
+
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "database-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "database-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** @throws RejectedExecutionException if the queue is full or the pool was shut down */
+    public static void execute(Runnable task) {
+        if (pool == null) {
+            task.run();
+            return;
+        }
+
+        long queuedAt = System.nanoTime();
+
+        pool.execute(() -> {
+            recordWait(System.nanoTime() - queuedAt);
+
+            try {
+                task.run();
+            } catch (Exception e) {
+                Output.println("Exception in database task: " + e.getMessage(), Level.DEBUG);
+            }
+        });
+    }
+
+    private static void recordWait(long nanos) {
+        completedTasks.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+
+        long max;
+        while (nanos > (max = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /** Number of tasks waiting for a free thread. */
+    public static int getQueueDepth() {
+        return (pool != null) ? pool.getQueue().size() : 0;
+    }
+
+    /** Number of tasks waiting in the per session queues. */
+    public static int getPendingSerialTasks() {
+        return pendingSerialTasks.get();
+    }
+
+    /** Number of times a session queue was rejected because the pool was full. */
+    public static long getRejectedTasks() {
+        return rejectedTasks.get();
+    }
+
+    public static int getActiveThreads() {
+        return (pool != null) ? pool.getActiveCount() : 0;
+    }
+
+    /** Average time in milliseconds that a task waited in the queue. */
+    public static double getAverageWait() {
+        long completed = completedTasks.get();
+        return (completed > 0) ? (totalWaitNanos.get() / (double) completed) / 1000000 : 0;
+    }
+
+    /** Maximum time in milliseconds that a task waited in the queue. */
+    public static double getMaxWait() {
+        return maxWaitNanos.get() / 1000000.0;
+    }
+
+    public static void shutdown() {
+        if (retryScheduler != null) {
+            retryScheduler.shutdown();
+        }
+
+        if (pool != null) {
+            pool.shutdown();
+
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Output.println("Database executor shutdown interrupted: " +
+                        e.getMessage(), Level.DEBUG);
+            }
+        }
+    }
+
+    /**
+     * Creates a queue whose tasks run in the pool one after another.
+     * @param onRejected called, in the submitting thread, when the pool is full
+     */
+    public static SerialExecutor newSerialExecutor(Runnable onRejected) {
+        return new SerialExecutor(DatabaseExecutor::execute, onRejected);
+    }
+
+    private DatabaseExecutor() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Executes tasks in submission order, one at a time, on the underlying executor.<br>
+     * Used to keep the messages of a session sequential.<br>
+     * If the underlying executor rejects the queue, its tasks are kept and
+     * submitted again later, so they are never lost nor run in the caller.
+     */
+    public static class SerialExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private final Executor executor;
+        private final Runnable onRejected;
+
+        private boolean running;
+
+        private SerialExecutor(Executor executor, Runnable onRejected) {
+            this.executor = executor;
+            this.onRejected = onRejected;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            pendingSerialTasks.incrementAndGet();
+
+            synchronized (tasks) {
+                tasks.add(task);
+
+                if (running) {
+                    return;
+                }
+
+                running = true;
+            }
+
+            schedule();
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this::runNext);
+            } catch (RejectedExecutionException e) {
+                rejectedTasks.incrementAndGet();
+                onRejected.run();
+
+                try {
+                    retryScheduler.schedule(this::schedule, RETRY_DELAY, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ignored) {
+                    // Shutting down, the pending tasks are discarded
+                }
+            }
+        }
+
+        private void runNext() {
+            while (true) {
+                Runnable task;
+
+                synchronized (tasks) {
+                    task = tasks.poll();
+
+                    if (task == null) {
+                        running = false;
+                        return;
+                    }
+                }
+
+                pendingSerialTasks.decrementAndGet();
+
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    // Tasks report their own errors, this only keeps the queue running
+                    Output.println("Exception in serial task: " + e.getMessage(), Level.DEBUG);
+                }
+            }
+        }
+    }
+}
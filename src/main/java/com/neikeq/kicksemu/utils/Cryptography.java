@@ -6,21 +6,34 @@ import io.netty.buffer.ByteBuf;
 public class Cryptography {
 
     private static final byte ENCRYPTION_KEY = -27;
-    
+    private static final long ENCRYPTION_KEY_LONG = 0x0101010101010101L * (ENCRYPTION_KEY & 0xFF);
+
     /**
-     * Simple XOR encryption.
+     * Simple XOR encryption.<br>
+     * The buffer is modified in place, 8 bytes at a time. The header is not encrypted.
      *
      * @param buffer the byte array to be decrypted.
      *
      * @return the decrypted byte array.
      */
     public static ByteBuf decrypt(ByteBuf buffer) {
-        for (int i = 0; i < buffer.readableBytes(); i++) {
-            if (i >= Constants.HEADER_SIZE) {
-                buffer.setByte(i, buffer.getByte(i) ^ ENCRYPTION_KEY);
-            }
+        final int length = buffer.readableBytes();
+        int i = Constants.HEADER_SIZE;
+
+        // The key is the same byte repeated, so the byte order does not matter
+        for (; i + 8 <= length; i += 8) {
+            buffer.setLong(i, buffer.getLong(i) ^ ENCRYPTION_KEY_LONG);
+        }
+
+        for (; i < length; i++) {
+            buffer.setByte(i, buffer.getByte(i) ^ ENCRYPTION_KEY);
         }
-        
+
         return buffer;
     }
+
+    /** XOR is symmetric, so encrypting is the same operation as decrypting. */
+    public static ByteBuf encrypt(ByteBuf buffer) {
+        return decrypt(buffer);
+    }
 }
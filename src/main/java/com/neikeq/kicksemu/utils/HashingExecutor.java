@@ -0,0 +1,87 @@
+package com.neikeq.kicksemu.utils;
+
+import com.neikeq.kicksemu.config.Configuration;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded thread pool for the password and address hashes computed on login.<br>
+ * Hashes are CPU bound, so the pool has one thread per core by default and a burst
+ * of logins queues here instead of occupying every database thread.
+ * When the queue is full the hash is computed in the calling thread.
+ */
+public class HashingExecutor {
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static ThreadPoolExecutor pool;
+
+    public static void initialize() {
+        int threads = Configuration.getInt("login.hash.threads");
+        int queueSize = Configuration.getInt("login.hash.queue");
+
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /** Computes the hash in the pool and waits for the result. */
+    public static <T> T call(HashTask<T> task) throws GeneralSecurityException {
+        if (pool == null) {
+            return task.call();
+        }
+
+        Future<T> future = pool.submit(task::call);
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new GeneralSecurityException("Interrupted while hashing.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) e.getCause();
+            }
+
+            throw new GeneralSecurityException(e.getCause());
+        }
+    }
+
+    /** Number of hashes waiting for a free thread. */
+    public static int getQueueDepth() {
+        return (pool != null) ? pool.getQueue().size() : 0;
+    }
+
+    public static int getActiveThreads() {
+        return (pool != null) ? pool.getActiveCount() : 0;
+    }
+
+    public static void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private HashingExecutor() {
+        throw new AssertionError();
+    }
+
+    @FunctionalInterface
+    public interface HashTask<T> {
+        T call() throws GeneralSecurityException;
+    }
+}
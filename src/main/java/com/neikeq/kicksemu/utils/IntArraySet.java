@@ -0,0 +1,92 @@
+package com.neikeq.kicksemu.utils;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Set of ints backed by an array that keeps the insertion order.<br>
+ * Meant for small sets, where a linear scan of the array is faster than hashing.
+ * This class is not thread-safe.
+ */
+public class IntArraySet {
+
+    private int[] values;
+    private int size;
+
+    public IntArraySet(int initialCapacity) {
+        values = new int[Math.max(1, initialCapacity)];
+    }
+
+    /** @return true if the value was not already in the set */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        values[size++] = value;
+        return true;
+    }
+
+    /** @return true if the value was in the set */
+    public boolean remove(int value) {
+        int index = indexOf(value);
+
+        if (index == -1) {
+            return false;
+        }
+
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) != -1;
+    }
+
+    private int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    /** Values separated by commas, as stored in the database. */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+
+            builder.append(values[i]);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.neikeq.kicksemu.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, similar to HdrHistogram.<br>
+ * Values are recorded in microseconds. Each power of two is split in 8 sub-buckets,
+ * so the relative error of a reported value is below 12.5%.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = LINEAR_LIMIT +
+            ((MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        buckets.incrementAndGet(indexOf(Math.max(0, micros)));
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            total += buckets.get(i);
+        }
+
+        return total;
+    }
+
+    /**
+     * @param percentile value between 0 and 100
+     * @return the upper bound in microseconds of the bucket containing the percentile
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getTotalCount();
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil((percentile / 100) * total));
+        long accumulated = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            accumulated += buckets.get(i);
+
+            if (accumulated >= target) {
+                return upperBoundOf(i);
+            }
+        }
+
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (buckets.get(i) > 0) {
+                return upperBoundOf(i);
+            }
+        }
+
+        return 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        int index = LINEAR_LIMIT + ((exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS) + subBucket;
+
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        int exponent = ((index - LINEAR_LIMIT) / SUB_BUCKETS) + SUB_BUCKET_BITS + 1;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
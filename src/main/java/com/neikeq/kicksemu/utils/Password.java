@@ -1,17 +1,25 @@
 package com.neikeq.kicksemu.utils;
 
+import com.neikeq.kicksemu.config.Configuration;
+
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 
 public class Password {
 
     // SHA-256
     private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String MAC_PREFIX = "h1";
 
     private static byte[] hash(char[] password, byte[] salt, int iterations, int length)
             throws NoSuchAlgorithmException, InvalidKeySpecException {
@@ -40,8 +48,51 @@ public class Password {
         return hash(address.getHostAddress().toCharArray(), salt, 1000, 24);
     }
 
+    /** Returns true if the servers share a secret to generate address MACs. */
+    public static boolean isAddressMacEnabled() {
+        return !Configuration.get("login.session.secret").isEmpty();
+    }
+
+    /**
+     * Binds a session to the address with a MAC keyed by the secret shared by the servers.
+     * Unlike the password hashes, this does not need to be slow.
+     */
+    public static String addressMac(InetAddress address)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        return MAC_PREFIX + "$" + toBase64(mac(address));
+    }
+
+    /** Returns true if the hash was generated by hashAddress instead of addressMac. */
+    public static boolean isLegacyAddressHash(String correctAddress) {
+        return (correctAddress != null) && !correctAddress.startsWith(MAC_PREFIX + "$");
+    }
+
+    private static byte[] mac(InetAddress address)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        byte[] secret = Configuration.get("login.session.secret").getBytes(StandardCharsets.UTF_8);
+
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+        return mac.doFinal(address.getHostAddress().getBytes(StandardCharsets.US_ASCII));
+    }
+
     public static boolean isInvalidAddressHash(InetAddress address, String correctAddress)
-            throws InvalidKeySpecException, NoSuchAlgorithmException {
+            throws InvalidKeySpecException, NoSuchAlgorithmException, InvalidKeyException {
+        if (correctAddress == null) {
+            return true;
+        }
+
+        if (!isLegacyAddressHash(correctAddress)) {
+            // Without the secret the MAC can not be verified
+            if (!isAddressMacEnabled()) {
+                return true;
+            }
+
+            String[] stored = correctAddress.split("\\$");
+
+            return !compare(fromBase64(stored[1]), mac(address));
+        }
+
         String[] stored = correctAddress.split("\\$");
 
         byte[] salt = fromBase64(stored[0]);
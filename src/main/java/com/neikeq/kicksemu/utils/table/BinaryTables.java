@@ -0,0 +1,321 @@
+package com.neikeq.kicksemu.utils.table;
+
+import com.neikeq.kicksemu.io.Output;
+import com.neikeq.kicksemu.io.logging.Level;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Precompiled binary copy of the rows of many tables, read through a memory mapped file.<br>
+ * Every table is stored with the size and modification time of its csv file. If the csv
+ * file changed since the snapshot was compiled, its rows are not used and the csv file
+ * must be read.<br>
+ * A mapped file can not be replaced on every platform, so each compilation writes a new
+ * generation of the snapshot, named after the snapshot file followed by a number, and
+ * the older generations are deleted once they are no longer mapped.
+ * <pre>
+ * int magic, int version, int tables
+ * for each table: string path, long size, long modification time, int rows
+ *     for each row: short columns, for each column: string column
+ * where string is an int length followed by the utf-8 bytes
+ * </pre>
+ */
+public class BinaryTables {
+
+    private static final int MAGIC = 0x4B455442;
+    private static final int VERSION = 2;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Opens the latest generation of the snapshot and deletes the older ones.
+     * @return the snapshot, or empty if there is none or it is invalid
+     */
+    public static Optional<BinaryTables> open(String file) {
+        List<Path> generations = listGenerations(file);
+
+        if (generations.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Path latest = generations.get(generations.size() - 1);
+
+        // Best effort, a generation still mapped by this process may not be deleted yet
+        for (Path generation : generations.subList(0, generations.size() - 1)) {
+            try {
+                Files.deleteIfExists(generation);
+            } catch (IOException ignored) {}
+        }
+
+        return openGeneration(latest);
+    }
+
+    private static Optional<BinaryTables> openGeneration(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            return Optional.of(new BinaryTables(buffer));
+        } catch (IOException | RuntimeException e) {
+            Output.println("Exception when opening table snapshot: " + e.getMessage(),
+                    Level.DEBUG);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads the specified csv files and writes their rows to a new generation of the snapshot.
+     * <br>The generation is visible only once it is completely written.
+     */
+    public static void compile(String file, Collection<String> tablePaths) throws IOException {
+        List<Path> generations = listGenerations(file);
+        long generation = generations.isEmpty() ? 1 :
+                generationOf(generations.get(generations.size() - 1)) + 1;
+
+        Path target = Paths.get(file + "." + generation);
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+                target.getFileName() + "-", ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp.toFile())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(tablePaths.size());
+
+                for (String tablePath : tablePaths) {
+                    // Read before the rows so a concurrent change makes the entry stale
+                    FileVersion version = FileVersion.of(tablePath);
+                    List<String[]> rows = new ArrayList<>();
+
+                    try (TableReader reader = new TableReader(tablePath)) {
+                        Optional<Row> maybeRow;
+                        while ((maybeRow = reader.nextRow()).isPresent()) {
+                            rows.add(maybeRow.get().toArray());
+                        }
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+
+                    writeString(out, tablePath);
+                    out.writeLong(version.size);
+                    out.writeLong(version.lastModified);
+                    out.writeInt(rows.size());
+
+                    for (String[] row : rows) {
+                        out.writeShort(row.length);
+
+                        for (String column : row) {
+                            writeString(out, column);
+                        }
+                    }
+                }
+            }
+
+            // The target is a new file, so no mapped file is replaced
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /** Existing generations of the snapshot, sorted from the oldest to the latest. */
+    private static List<Path> listGenerations(String file) {
+        Path snapshot = Paths.get(file).toAbsolutePath();
+        Path directory = snapshot.getParent();
+        String prefix = snapshot.getFileName() + ".";
+
+        List<Path> generations = new ArrayList<>();
+
+        if ((directory == null) || !Files.isDirectory(directory)) {
+            return generations;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path path : stream) {
+                if (generationOf(path) > 0) {
+                    generations.add(path);
+                }
+            }
+        } catch (IOException e) {
+            Output.println("Exception when listing table snapshots: " + e.getMessage(),
+                    Level.DEBUG);
+        }
+
+        generations.sort(Comparator.comparingLong(BinaryTables::generationOf));
+        return generations;
+    }
+
+    /** @return the generation number in the file name, or 0 if it is not a generation */
+    private static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+
+        try {
+            return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** @return a reader of the stored rows if the csv file did not change */
+    public Optional<TableReader> reader(String tablePath) {
+        Entry entry = entries.get(tablePath);
+
+        if ((entry != null) && entry.version.equals(FileVersion.of(tablePath))) {
+            return Optional.of(new TableReader(tablePath, new RowIterator(entry)));
+        }
+
+        return Optional.empty();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.position(buffer.position() + length);
+    }
+
+    private BinaryTables(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+            throw new IllegalStateException("Invalid or outdated snapshot format.");
+        }
+
+        int tables = buffer.getInt();
+
+        for (int i = 0; i < tables; i++) {
+            String tablePath = readString(buffer);
+            FileVersion version = new FileVersion(buffer.getLong(), buffer.getLong());
+            int rows = buffer.getInt();
+            int offset = buffer.position();
+
+            // Skip the rows until they are requested
+            for (int r = 0; r < rows; r++) {
+                int columns = buffer.getShort() & 0xFFFF;
+
+                for (int c = 0; c < columns; c++) {
+                    skipString(buffer);
+                }
+            }
+
+            entries.put(tablePath, new Entry(version, rows, offset));
+        }
+    }
+
+    /** Size and modification time of a csv file, both -1 if it does not exist. */
+    private static class FileVersion {
+
+        private final long size;
+        private final long lastModified;
+
+        private static FileVersion of(String tablePath) {
+            File file = new File(tablePath);
+            return file.exists() ? new FileVersion(file.length(), file.lastModified()) :
+                    new FileVersion(-1, -1);
+        }
+
+        private FileVersion(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileVersion)) {
+                return false;
+            }
+
+            FileVersion other = (FileVersion) o;
+            return (size == other.size) && (lastModified == other.lastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(lastModified);
+        }
+    }
+
+    private static class Entry {
+
+        private final FileVersion version;
+        private final int rows;
+        private final int offset;
+
+        private Entry(FileVersion version, int rows, int offset) {
+            this.version = version;
+            this.rows = rows;
+            this.offset = offset;
+        }
+    }
+
+    /** Decodes the rows of a table as they are requested. */
+    private class RowIterator implements Iterator<String[]> {
+
+        private final ByteBuffer rowsBuffer;
+        private int remaining;
+
+        private RowIterator(Entry entry) {
+            rowsBuffer = buffer.duplicate();
+            rowsBuffer.position(entry.offset);
+            remaining = entry.rows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public String[] next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+
+            remaining--;
+
+            String[] row = new String[rowsBuffer.getShort() & 0xFFFF];
+
+            for (int i = 0; i < row.length; i++) {
+                row[i] = readString(rowsBuffer);
+            }
+
+            return row;
+        }
+    }
+}
@@ -37,6 +37,10 @@ public class Row {
         return hasColumn(index) ? Optional.of(columns.get(index)) : Optional.empty();
     }
 
+    String[] toArray() {
+        return columns.toArray(new String[columns.size()]);
+    }
+
     public Row(String[] row) {
         columns = Arrays.asList(row);
     }
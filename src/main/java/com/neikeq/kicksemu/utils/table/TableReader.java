@@ -1,18 +1,23 @@
 package com.neikeq.kicksemu.utils.table;
 
-import com.neikeq.kicksemu.io.Output;
-import com.neikeq.kicksemu.io.logging.Level;
 import com.opencsv.CSVReader;
 
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.Optional;
 
-public class TableReader {
+/**
+ * Reads the rows of a table one at a time without buffering the whole file.<br>
+ * The file is closed once the last row is read, or when the reader is closed.<br>
+ * Errors are thrown as {@link UncheckedIOException} so an incomplete table is never used.
+ */
+public class TableReader implements AutoCloseable {
 
-    private final List<Row> rows;
+    private CSVReader reader;
+    /** Rows of a precompiled table. Used instead of the csv reader if not null. */
+    private final Iterator<String[]> rows;
     private int index;
     private final String tablePath;
 
@@ -20,11 +25,34 @@ public class TableReader {
         return index;
     }
 
-    public Optional<Row> nextRow() throws IndexOutOfBoundsException {
-        if (index < rows.size()) {
-            return Optional.of(rows.get(index++));
+    /** @throws UncheckedIOException if the file could not be read */
+    public Optional<Row> nextRow() {
+        if (rows != null) {
+            if (rows.hasNext()) {
+                index++;
+                return Optional.of(new Row(rows.next()));
+            }
+
+            return Optional.empty();
+        }
+
+        if (reader == null) {
+            return Optional.empty();
+        }
+
+        try {
+            String[] row = reader.readNext();
+
+            if (row != null) {
+                index++;
+                return Optional.of(new Row(row));
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Exception when reading table: " + tablePath, e);
         }
 
+        close();
         return Optional.empty();
     }
 
@@ -32,18 +60,32 @@ public class TableReader {
         return tablePath;
     }
 
+    @Override
+    public void close() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            } finally {
+                reader = null;
+            }
+        }
+    }
+
+    TableReader(String path, Iterator<String[]> rows) {
+        tablePath = path;
+        this.rows = rows;
+    }
+
+    /** @throws UncheckedIOException if the file could not be opened */
     public TableReader(String path) {
-        rows = new ArrayList<>();
         tablePath = path;
+        rows = null;
 
-        try (FileReader fr = new FileReader(path);
-             CSVReader reader = new CSVReader(fr, ',', '\"', 1)) {
-            String[] row;
-            while ((row = reader.readNext()) != null) {
-                rows.add(new Row(row));
-            }
+        try {
+            reader = new CSVReader(new FileReader(path), ',', '\"', 1);
         } catch (IOException e) {
-            Output.println("Exception when opening table: " + path, Level.DEBUG);
+            throw new UncheckedIOException("Exception when opening table: " + path, e);
         }
     }
 }